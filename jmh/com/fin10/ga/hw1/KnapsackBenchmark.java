@@ -0,0 +1,151 @@
+package com.fin10.ga.hw1;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fin10.ga.engine.Engine;
+import com.fin10.ga.engine.RouletteSelector;
+import com.fin10.ga.util.RouletteWheel;
+
+// it measures the engines of Knapsack with hw1.txt and the generated large instances.
+// the population evolves between the invocations, like in a run, so each generation is measured on a living population.
+// the large population of hw1.txt is measured by '-p instance=hw1.txt -p size=100000', because the large population
+// of the generated instances doesn't fit in the heap.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KnapsackBenchmark {
+
+	private static final long SEED = 1L;
+
+	// hw1.txt or the number of the items of a generated instance.
+	@Param({ "hw1.txt", "10000", "50000" })
+	public String instance;
+
+	@Param({ "100", "1000" })
+	public int size;
+
+	@Param("1")
+	public int threads;
+
+	private Knapsack mKnapsack;
+	// the engines of the tournament selection, with the random, the GREEDY and the HYBRID seeding, and with the repair.
+	private Engine mEngine;
+	private Engine mGreedy;
+	private Engine mHybrid;
+	private Engine mRepaired;
+
+	// the engine of the roulette wheel selection by each method.
+	@State(Scope.Benchmark)
+	public static class Wheel {
+
+		@Param
+		public RouletteWheel.Method method;
+
+		private Engine mEngine;
+
+		@Setup(Level.Trial)
+		public void setUp(KnapsackBenchmark benchmark) {
+			mEngine = benchmark.mKnapsack.createEngine(benchmark.size, true);
+			mEngine.setSelector(new RouletteSelector(method));
+			mEngine.generate();
+		}
+	}
+
+	// the core solution of the HYBRID seeding is solved when its engine is created, so it is not measured.
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		if (instance.endsWith(".txt")) {
+			mKnapsack = new Knapsack(instance, SEED, threads);
+		} else {
+			mKnapsack = new Knapsack(generate(Integer.parseInt(instance)), SEED, threads);
+		}
+
+		mEngine = mKnapsack.createEngine(size, false);
+		mKnapsack.setSeeding(Knapsack.Seeding.GREEDY);
+		mGreedy = mKnapsack.createEngine(size, false);
+		mKnapsack.setSeeding(Knapsack.Seeding.HYBRID);
+		mHybrid = mKnapsack.createEngine(size, false);
+		mKnapsack.setSeeding(Knapsack.Seeding.RANDOM);
+		mKnapsack.setRepairing(true);
+		mRepaired = mKnapsack.createEngine(size, false);
+		mKnapsack.setRepairing(false);
+
+		mEngine.generate();
+		mRepaired.generate();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		mKnapsack.shutdown();
+	}
+
+	@Benchmark
+	public Engine generatePopulation() {
+		mEngine.generate();
+		return mEngine;
+	}
+
+	@Benchmark
+	public Engine generatePopulationGreedy() {
+		mGreedy.generate();
+		return mGreedy;
+	}
+
+	@Benchmark
+	public Engine generatePopulationHybrid() {
+		mHybrid.generate();
+		return mHybrid;
+	}
+
+	@Benchmark
+	public Engine rouletteWheelGeneration(Wheel wheel) {
+		wheel.mEngine.step();
+		return wheel.mEngine;
+	}
+
+	@Benchmark
+	public Engine generation() {
+		mEngine.step();
+		return mEngine;
+	}
+
+	@Benchmark
+	public Engine generationRepaired() {
+		mRepaired.step();
+		return mRepaired;
+	}
+
+	// a random instance whose capacity is a half of the total weight.
+	private static KnapsackInstance generate(int items) {
+		Random random = new Random(SEED);
+		int[] weights = new int[items];
+		int[] profits = new int[items];
+		long total = 0;
+		for (int i = 0; i < items; ++i) {
+			weights[i] = 1 + random.nextInt(100);
+			profits[i] = 1 + random.nextInt(100);
+			total += weights[i];
+		}
+
+		return new KnapsackInstance((int) (total / 2), weights, profits);
+	}
+}
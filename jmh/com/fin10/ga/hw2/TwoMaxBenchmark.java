@@ -0,0 +1,82 @@
+package com.fin10.ga.hw2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fin10.ga.engine.Engine;
+
+// it measures the engine of TwoMaxProblem with several population sizes.
+// the genome length is fixed by TwoMaxProblem.LENGTH.
+// the niche counts of the engine always follow the current generation, so every step is measured
+// with the update of the fitness sharing.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TwoMaxBenchmark {
+
+	private static final long SEED = 1L;
+
+	@Param({ "100", "1000", "5000" })
+	public int size;
+
+	@Param("1")
+	public int threads;
+
+	private TwoMaxProblem mProblem;
+	private Engine mEngine;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		mProblem = new TwoMaxProblem(SEED, threads);
+		mEngine = mProblem.createEngine(size);
+		mEngine.generate();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		mProblem.shutdown();
+	}
+
+	@Benchmark
+	public Engine generatePopulation() {
+		mEngine.generate();
+		return mEngine;
+	}
+
+	@Benchmark
+	public Engine generation() {
+		mEngine.step();
+		return mEngine;
+	}
+
+	// it makes the same number of offsprings as a generation.
+	@Benchmark
+	public void steadyStateGeneration(Blackhole blackhole) {
+		for (int i = 0; i < size / 2; ++i) {
+			blackhole.consume(steadyStateStep());
+		}
+	}
+
+	@Benchmark
+	public Engine steadyStateStep() {
+		mEngine.steadyStep(Engine.Replacement.WORST);
+		return mEngine;
+	}
+}
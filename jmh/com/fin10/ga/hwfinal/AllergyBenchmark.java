@@ -0,0 +1,181 @@
+package com.fin10.ga.hwfinal;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fin10.ga.engine.Engine;
+import com.fin10.ga.engine.Genome;
+import com.fin10.ga.util.FitnessCache;
+import com.fin10.ga.util.ParallelEvaluator;
+import com.fin10.ga.util.Tokenizer;
+
+// it measures the engines of AllergyProblem with the cases of hw_final.txt and the generated large cases.
+// the population evolves between the invocations, like in a run, so each generation is measured on a living population.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllergyBenchmark {
+
+	private static final long SEED = 1L;
+	// the probability that a person can eat a food in the generated cases.
+	private static final float DENSITY = 0.01f;
+	private static final int CACHE_CAPACITY = 1 << 16;
+
+	// the index of a case of hw_final.txt, or 'people x foods' of a generated case.
+	@Param({ "0", "1", "1000x1000", "5000x2000" })
+	public String instance;
+
+	// AllergyProblem.POPULATION_SIZE and a larger one.
+	@Param({ "500", "2000" })
+	public int size;
+
+	@Param("1")
+	public int threads;
+
+	private ParallelEvaluator mEvaluator;
+	private AllergyProblem mProblem;
+	private AllergyFitness mFitness;
+	// the engines of the random seeding, with the cache, with the greedy seeding, with the repair, and memetic.
+	private Engine mEngine;
+	private Engine mCached;
+	private Engine mGreedy;
+	private Engine mRepaired;
+	private Engine mMemetic;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		mEvaluator = new ParallelEvaluator(threads);
+		int separator = instance.indexOf('x');
+		if (separator < 0) {
+			mProblem = read(Integer.parseInt(instance));
+		} else {
+			mProblem = generate(Integer.parseInt(instance.substring(0, separator)),
+					Integer.parseInt(instance.substring(separator + 1)));
+		}
+
+		mProblem.buildIndex();
+		mFitness = new AllergyFitness(mProblem.getIndex());
+		mEngine = mProblem.createEngine(size, SEED, mEvaluator);
+		mProblem.setFitnessCache(new FitnessCache(CACHE_CAPACITY));
+		mCached = mProblem.createEngine(size, SEED, mEvaluator);
+		mProblem.setFitnessCache(null);
+		mProblem.setSeeding(AllergyProblem.Seeding.GREEDY);
+		mGreedy = mProblem.createEngine(size, SEED, mEvaluator);
+		mProblem.setSeeding(AllergyProblem.Seeding.RANDOM);
+		mProblem.setRepairing(true);
+		mRepaired = mProblem.createEngine(size, SEED, mEvaluator);
+		mProblem.setMemetic();
+		mMemetic = mProblem.createEngine(size, SEED, mEvaluator);
+
+		mEngine.generate();
+		mCached.generate();
+		mRepaired.generate();
+		mMemetic.generate();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		mEvaluator.shutdown();
+	}
+
+	@Benchmark
+	public Engine generatePopulation() {
+		mEngine.generate();
+		return mEngine;
+	}
+
+	@Benchmark
+	public Engine generatePopulationGreedy() {
+		mGreedy.generate();
+		return mGreedy;
+	}
+
+	// the fitness function alone, over the current generation.
+	@Benchmark
+	public double calculateFitness() {
+		double total = 0;
+		for (Genome genome : mEngine.getPopulation()) {
+			total += mFitness.evaluate(genome);
+		}
+
+		return total;
+	}
+
+	@Benchmark
+	public float getConvergence() {
+		return mEngine.getAlleleCounter().getConvergence();
+	}
+
+	@Benchmark
+	public Engine generation() {
+		mEngine.step();
+		return mEngine;
+	}
+
+	// most of the offsprings are found in the cache after the warmup.
+	@Benchmark
+	public Engine generationCached() {
+		mCached.step();
+		return mCached;
+	}
+
+	@Benchmark
+	public Engine generationRepaired() {
+		mRepaired.step();
+		return mRepaired;
+	}
+
+	@Benchmark
+	public Engine generationMemetic() {
+		mMemetic.step();
+		return mMemetic;
+	}
+
+	private AllergyProblem read(int index) throws IOException {
+		try (CaseReader reader = new CaseReader(Tokenizer.open("hw_final.txt"), SEED, mEvaluator)) {
+			for (int i = 0; i < index; ++i) {
+				reader.next();
+			}
+
+			return reader.next();
+		}
+	}
+
+	// every person can eat at least one food, so the generated case always has a solution.
+	private AllergyProblem generate(int people, int foods) {
+		Random random = new Random(SEED);
+		String[] names = new String[people];
+		for (int i = 0; i < people; ++i) {
+			names[i] = "p" + i;
+		}
+
+		AllergyProblem problem = new AllergyProblem(names, foods, SEED, mEvaluator);
+		for (int i = 0; i < people; ++i) {
+			AllergyProblem.Person person = problem.getPerson(names[i]);
+			person.setFood(random.nextInt(foods), true);
+			for (int j = 0; j < foods; ++j) {
+				if (random.nextFloat() < DENSITY) person.setFood(j, true);
+			}
+		}
+
+		return problem;
+	}
+}
@@ -0,0 +1,108 @@
+package com.fin10.ga.util;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// the kernels on the widest int vectors of the CPU. the bits of a word are spread over the lanes,
+// so the values of the 1 bits are summed without a branch for each gene.
+// it is loaded by Kernels if it is on the class path, see Kernels.
+public final class VectorKernels extends Kernels {
+
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+	private static final int LANES = SPECIES.length();
+	// 31 - i for the lane i.
+	private static final IntVector SIGN_SHIFTS = IntVector.broadcast(SPECIES, 31).sub(IntVector.zero(SPECIES).addIndex(1));
+	// 1 << i for the lane i.
+	private static final IntVector LANE_BITS = IntVector.broadcast(SPECIES, 1)
+			.lanewise(VectorOperators.LSHL, IntVector.zero(SPECIES).addIndex(1));
+
+	public VectorKernels() {
+		// a word is split into the whole vectors.
+		if (64 % LANES != 0) throw new UnsupportedOperationException("lanes: " + LANES);
+	}
+
+	@Override
+	public String getName() {
+		return "vector " + SPECIES.vectorBitSize() + "-bit";
+	}
+
+	@Override
+	public int maskedSum(long[] words, int offset, int[] values, int length) {
+		IntVector sum = IntVector.zero(SPECIES);
+		int count = (length + 63) >>> 6;
+		for (int i = 0; i < count; ++i) {
+			long word = words[offset + i];
+			int base = i << 6;
+			for (int j = 0; word != 0; j += LANES, word >>>= LANES) {
+				int index = base + j;
+				if (index + LANES <= values.length) {
+					sum = sum.add(IntVector.fromArray(SPECIES, values, index).and(getLanes(word)));
+				} else {
+					// only the lanes of the 1 bits are loaded, so the lanes after length are never read.
+					sum = sum.add(IntVector.fromArray(SPECIES, values, index, getMask(word)));
+				}
+			}
+		}
+
+		return sum.reduceLanes(VectorOperators.ADD);
+	}
+
+	// the vector API of this JDK has no lane-wise bit count, and Long.bitCount() is already an intrinsic.
+	@Override
+	public int hammingDistance(long[] words1, int offset1, long[] words2, int offset2, int count) {
+		int distance = 0;
+		for (int i = 0; i < count; ++i) {
+			distance += Long.bitCount(words1[offset1 + i] ^ words2[offset2 + i]);
+		}
+
+		return distance;
+	}
+
+	@Override
+	public void addBitCounts(long[] words, int offset, int[] counts, int length) {
+		int count = (length + 63) >>> 6;
+		for (int i = 0; i < count; ++i) {
+			long word = words[offset + i];
+			int base = i << 6;
+			for (int j = 0; word != 0; j += LANES, word >>>= LANES) {
+				int index = base + j;
+				if (index + LANES <= counts.length) {
+					// -1 is subtracted for each 1 bit.
+					IntVector.fromArray(SPECIES, counts, index).sub(getLanes(word)).intoArray(counts, index);
+				} else {
+					// the last lanes are out of the array, but their bits are 0.
+					VectorMask<Integer> range = SPECIES.indexInRange(index, counts.length);
+					IntVector.fromArray(SPECIES, counts, index, range).add(1, getMask(word)).intoArray(counts, index, range);
+				}
+			}
+		}
+	}
+
+	// the lane i is -1 if the bit i of the word is 1, otherwise 0.
+	// the bit of each lane is moved to the sign bit and spread over the lane, so no mask is made.
+	private static IntVector getLanes(long word) {
+		return IntVector.broadcast(SPECIES, (int) word).lanewise(VectorOperators.LSHL, SIGN_SHIFTS)
+				.lanewise(VectorOperators.ASHR, 31);
+	}
+
+	// the lane i is set if the bit i of the word is 1. it is only for the last lanes of an array,
+	// because VectorMask.fromLong() is not compiled into a vector instruction.
+	private static VectorMask<Integer> getMask(long word) {
+		return IntVector.broadcast(SPECIES, (int) word).and(LANE_BITS).compare(VectorOperators.NE, 0);
+	}
+
+	@Override
+	public void addCounts(boolean[] values, int[] counts, int length) {
+		int i = 0;
+		for (int upper = SPECIES.loopBound(length); i < upper; i += LANES) {
+			VectorMask<Integer> mask = VectorMask.fromArray(SPECIES, values, i);
+			IntVector.fromArray(SPECIES, counts, i).add(1, mask).intoArray(counts, i);
+		}
+
+		for (; i < length; ++i) {
+			if (values[i]) ++counts[i];
+		}
+	}
+}
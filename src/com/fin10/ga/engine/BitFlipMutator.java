@@ -0,0 +1,33 @@
+package com.fin10.ga.engine;
+
+import java.util.Random;
+
+import com.fin10.ga.util.GeometricSkip;
+
+// each gene is inverted in the given probability. only the inverted genes are drawn, see GeometricSkip.
+public final class BitFlipMutator<G> implements Mutator<G> {
+
+	private final Genes<G> mGenes;
+	private final GeometricSkip mSkip;
+
+	public BitFlipMutator(Genes<G> genes, float prob) {
+		mGenes = genes;
+		mSkip = new GeometricSkip(prob);
+	}
+
+	@Override
+	public boolean mutate(G genome, Random random) {
+		return mutate(genome, 0, mGenes.length(genome), random);
+	}
+
+	// it mutates only the genes in [from, to), so the loci of a population can be mutated in parallel by ranges.
+	public boolean mutate(G genome, int from, int to, Random random) {
+		boolean mutated = false;
+		for (int i = mSkip.next(from - 1, random); i < to; i = mSkip.next(i, random)) {
+			mGenes.flip(genome, i);
+			mutated = true;
+		}
+
+		return mutated;
+	}
+}
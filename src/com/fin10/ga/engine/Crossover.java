@@ -0,0 +1,10 @@
+package com.fin10.ga.engine;
+
+import java.util.Random;
+
+// it recombines two parents in place, so they become the two offsprings.
+// it is called by several threads at once for different individuals, each with its own random.
+public interface Crossover<G> {
+
+	void cross(G mom, G papa, Random random);
+}
@@ -0,0 +1,16 @@
+package com.fin10.ga.engine;
+
+// a fitness function which keeps the fitness of an evaluated genome up to date by each changed gene,
+// so a genome which is changed by the operators or a repair is not evaluated again.
+// the genome keeps a state of 64 bits for it, e.g. the packed sums of its genes, and the fitness is derived from the state.
+// it is called by the evaluating threads concurrently, so it must be thread-safe.
+public interface DeltaFitness extends FitnessFunction {
+
+	// the state of the genes, which is calculated from scratch.
+	long getState(Genome genome);
+
+	// the state after the gene 'index' of the genes of the state becomes 'value'.
+	long flip(long state, int index, boolean value);
+
+	double getFitness(long state);
+}
@@ -0,0 +1,616 @@
+package com.fin10.ga.engine;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fin10.ga.metrics.GenerationMetrics.Phase;
+import com.fin10.ga.metrics.MetricsListener;
+import com.fin10.ga.metrics.MetricsRecorder;
+import com.fin10.ga.termination.Progress;
+import com.fin10.ga.termination.Termination;
+import com.fin10.ga.termination.Terminations;
+import com.fin10.ga.util.AlleleCounter;
+import com.fin10.ga.util.Checkpointer;
+import com.fin10.ga.util.FastRandom;
+import com.fin10.ga.util.FitnessCache;
+import com.fin10.ga.util.ParallelEvaluator;
+import com.fin10.ga.util.Snapshot;
+import com.fin10.ga.util.TopK;
+
+// the generation scheduler which runs any problem of bit genomes, given as a fitness function.
+//
+// a generation of the SELECTION scheme is:
+// 1. the elites, the genomes of the highest fitness, are copied into the next generation as they are.
+// 2. the rest of the next generation is filled with the parents chosen by the selector.
+// 3. the parents are shuffled and paired, and each pair is crossed over in the crossover probability, see Variation.
+// 4. each parent is mutated, and the changed genomes are repaired and evaluated.
+// the TOURNAMENT_REPLACEMENT scheme varies the current generation before the selection instead, see Scheme,
+// and the steady-state step replaces only two genomes in place, see steadyStep().
+// every phase is run in parallel by the evaluator, so the selector, the operators, the repair, the seeder and
+// the fitness function must be thread-safe. the generations are double-buffered, so no genome is allocated after
+// the engine is created. the result is reproducible for the same seed and the same thread count.
+public final class Engine {
+
+	public enum Scheme {
+		// the next generation is selected from the current one, and then it is crossed over and mutated.
+		SELECTION,
+		// the current generation is crossed over and mutated in place, and then the offspring i survives into the slot
+		// (elites + i) of the next generation unless a random offspring is better, which survives instead.
+		TOURNAMENT_REPLACEMENT
+	}
+
+	// the genome which an offspring of the steady-state step replaces.
+	public enum Replacement {
+		// the genome of the lowest fitness.
+		WORST,
+		// the loser of a tournament between two random genomes.
+		TOURNAMENT
+	}
+
+	private final FitnessFunction mFunction;
+	// the function if it is a delta fitness, or null.
+	private final DeltaFitness mDelta;
+	private final int mLength;
+	private final Population mPopulation;
+	// it is replaced when a run is resumed from a snapshot.
+	private FastRandom mRandom;
+	private final ParallelEvaluator mEvaluator;
+
+	private Scheme mScheme = Scheme.SELECTION;
+	private Selector mSelector = new TournamentSelector(2);
+	private Crossover<Genome> mCrossover = new PointCrossover<>(Genome.GENES, 1);
+	private float mCrossoverProb = 1.f;
+	private Mutator<Genome> mMutator;
+	private int mElites = 0;
+	// the fitness is not shared if null.
+	private FitnessSharing mSharing = null;
+	// the changed genomes are not repaired if null.
+	private Repair mRepair = null;
+	// the initial population is random if null.
+	private Seeder mSeeder = null;
+
+	private MetricsRecorder mRecorder = new MetricsRecorder(MetricsListener.NONE);
+	// the fitness of the evaluated genomes. it is not used if null.
+	private FitnessCache mCache = null;
+	// the fitness which is found in the cache, for each evaluating thread.
+	private final ThreadLocal<long[]> mCached = new ThreadLocal<long[]>() {
+
+		@Override
+		protected long[] initialValue() {
+			return new long[1];
+		}
+	};
+
+	// the buffers of the selection. they are reused for every generation.
+	private final float[] mKeys;
+	private final int[] mIndices;
+	private final int[] mSelected;
+	// the evaluations of the chunks of a phase. it is reset by each phase.
+	private final AtomicInteger mEvaluations = new AtomicInteger();
+	// the two offsprings of the steady-state step. they are not in the population.
+	private final Genome[] mOffsprings;
+	// the allele counts of the current generation, which are updated at the end of every step.
+	private final AlleleCounter mAlleles;
+
+	// the mutation is 1/length per gene by default.
+	// a genome of one gene is never crossed over, see PointCrossover, so it is only mutated.
+	public Engine(FitnessFunction function, int length, int size, long seed, ParallelEvaluator evaluator) {
+		if (length < 1) throw new IllegalArgumentException("length must be positive: " + length);
+		if (size < 2) throw new IllegalArgumentException("size must be at least 2: " + size);
+
+		mFunction = function;
+		mDelta = function instanceof DeltaFitness ? (DeltaFitness) function : null;
+		mLength = length;
+		mPopulation = new Population(size, length, mDelta);
+		mRandom = new FastRandom(seed);
+		mEvaluator = evaluator;
+		mMutator = new BitFlipMutator<>(Genome.GENES, 1.f / length);
+
+		mKeys = new float[size];
+		mIndices = new int[size];
+		mSelected = new int[size];
+		mOffsprings = new Genome[] { new Genome(length, mDelta), new Genome(length, mDelta) };
+		mAlleles = new AlleleCounter(length);
+		mAlleles.reset(size);
+	}
+
+	// it is SELECTION by default.
+	public void setScheme(Scheme scheme) {
+		mScheme = scheme;
+	}
+
+	public void setSelector(Selector selector) {
+		mSelector = selector;
+	}
+
+	// the pair is crossed over in the given probability.
+	public void setCrossover(Crossover<Genome> crossover, float prob) {
+		mCrossover = crossover;
+		mCrossoverProb = prob;
+	}
+
+	public void setMutator(Mutator<Genome> mutator) {
+		mMutator = mutator;
+	}
+
+	// the number of the best genomes which survive to the next generation without any change.
+	public void setElites(int elites) {
+		if (elites < 0 || elites > size()) throw new IllegalArgumentException("elites must be in [0, " + size() + "]: " + elites);
+
+		mElites = elites;
+	}
+
+	// the sharing keeps the niche counts of this engine, so it must not be shared with another engine.
+	public void setFitnessSharing(FitnessSharing sharing) {
+		mSharing = sharing;
+	}
+
+	// each genome which is changed by the crossover or the mutation is repaired before it is evaluated.
+	public void setRepair(Repair repair) {
+		mRepair = repair;
+	}
+
+	// each genome of the initial population is seeded after it is set randomly. it is not repaired after that,
+	// so the seeder repairs it if it needs.
+	public void setSeeder(Seeder seeder) {
+		mSeeder = seeder;
+	}
+
+	// the listener receives the metrics of every generation which is ended by endGeneration().
+	public void setMetricsListener(MetricsListener listener) {
+		mRecorder = new MetricsRecorder(listener);
+	}
+
+	// the raw fitness of a genome, or the state of a delta fitness, is looked up in the cache before it is calculated.
+	public void setFitnessCache(FitnessCache cache) {
+		mCache = cache;
+	}
+
+	public int size() {
+		return mPopulation.size();
+	}
+
+	public int length() {
+		return mLength;
+	}
+
+	// the genomes of the current generation. they are overwritten by the next generation.
+	public List<Genome> getPopulation() {
+		return mPopulation.current();
+	}
+
+	// the allele counts of the current generation.
+	public AlleleCounter getAlleleCounter() {
+		return mAlleles;
+	}
+
+	// the number of the evaluations from the start of the run, including the ones before it is resumed.
+	public long getEvaluations() {
+		return mRecorder.getTotalEvaluations();
+	}
+
+	// it runs the given number of generations from a random population and returns the best raw fitness of all generations.
+	public double run(int generations) {
+		return run(Terminations.generations(generations));
+	}
+
+	// it runs the generations from a random population until the termination stops it,
+	// and returns the best raw fitness of all generations.
+	public double run(Termination termination) {
+		generate();
+		try {
+			return run(termination, 0, endGeneration(), null, 0);
+		} catch (IOException e) {
+			// nothing is written without a checkpointer.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// like run(Termination), but it resumes from the checkpoint file if it exists, and writes the file every 'interval'
+	// generations. a resumed run counts the stall and the time of the termination from the resumed generation,
+	// but the evaluations from the start of the run.
+	public double run(Termination termination, String checkpoint, int interval) throws IOException {
+		Snapshot snapshot = Checkpointer.read(checkpoint);
+		int from = 0;
+		double best;
+		if (snapshot != null) {
+			from = restore(snapshot);
+			best = Double.longBitsToDouble(snapshot.getBest());
+		} else {
+			generate();
+			best = endGeneration();
+		}
+
+		try (Checkpointer checkpointer = new Checkpointer(checkpoint)) {
+			return run(termination, from, best, checkpointer, interval);
+		}
+	}
+
+	private double run(Termination termination, int from, double best, Checkpointer checkpointer, int interval)
+			throws IOException {
+		Progress progress = createProgress(from, best);
+		for (int i = from; !termination.isDone(progress); ++i) {
+			step();
+			progress.update(i + 1, endGeneration(), mRecorder.getTotalEvaluations());
+			if (checkpointer != null && (i + 1) % interval == 0) checkpoint(checkpointer, i + 1, progress.getBest());
+		}
+
+		return progress.getBest();
+	}
+
+	// it runs the steady-state steps from a random population until the termination stops it, and returns the best
+	// raw fitness. a generation is size/2 steps, which make as many offsprings as a generation of the schemes,
+	// and the metrics are reported once per it.
+	public double runSteadyState(Termination termination, Replacement replacement) {
+		generate();
+		Progress progress = createProgress(0, endGeneration());
+		int steps = size() / 2;
+		for (int i = 0; !termination.isDone(progress); ++i) {
+			for (int j = 0; j < steps; ++j) {
+				steadyStep(replacement);
+			}
+
+			progress.update(i + 1, endGeneration(), mRecorder.getTotalEvaluations());
+		}
+
+		return progress.getBest();
+	}
+
+	private Progress createProgress(int from, double best) {
+		Progress progress = new Progress(false, new Progress.DiversitySource() {
+
+			@Override
+			public double getDiversity() {
+				return Engine.this.getDiversity();
+			}
+		});
+		progress.start(from);
+		progress.update(from, best, mRecorder.getTotalEvaluations());
+		return progress;
+	}
+
+	// it sets the current generation with random values, seeds and evaluates it.
+	public void generate() {
+		mRecorder.reset();
+		long start = mRecorder.begin();
+		final List<Genome> genomes = mPopulation.current();
+		final Seeder seeder = mSeeder;
+		mEvaluations.set(0);
+		// the random of the chunks is seeded from mRandom, so the whole state of a run is in mRandom.
+		mEvaluator.execute(genomes.size(), mRandom.nextLong(), new ParallelEvaluator.RandomTask() {
+
+			@Override
+			public void run(int from, int to, Random random) {
+				int count = 0;
+				for (int i = from; i < to; ++i) {
+					Genome genome = genomes.get(i);
+					genome.randomize(random);
+					if (seeder != null) count += seeder.seed(i, genome, random);
+					genome.clearChanged();
+				}
+				mEvaluations.addAndGet(count);
+			}
+		});
+
+		mRecorder.addEvaluations(mEvaluations.get());
+		mRecorder.end(Phase.EVALUATION, start);
+
+		evaluate(genomes);
+		mAlleles.reset(genomes.size());
+		countAlleles();
+	}
+
+	// it makes the next generation of the current one by the scheme.
+	// each phase is run over the slots in parallel. each chunk of slots draws from its own random,
+	// which is derived from mRandom in order, so the result doesn't depend on the timing of the threads.
+	public void step() {
+		if (mScheme == Scheme.SELECTION) stepSelection();
+		else stepReplacement();
+
+		countAlleles();
+	}
+
+	private void stepSelection() {
+		final int size = size();
+		final List<Genome> genomes = mPopulation.current();
+
+		long start = mRecorder.begin();
+		final int elites = selectElites(genomes);
+		mSelector.prepare(genomes);
+		mEvaluator.execute(size - elites, mRandom.nextLong(), new ParallelEvaluator.RandomTask() {
+
+			@Override
+			public void run(int from, int to, Random random) {
+				mSelector.select(genomes, random, mSelected, from, to);
+				for (int i = from; i < to; ++i) {
+					mPopulation.next(elites + i).copyFrom(genomes.get(mSelected[i]));
+				}
+			}
+		});
+
+		mPopulation.swap();
+		List<Genome> parents = mPopulation.current();
+		mRecorder.end(Phase.SELECTION, start);
+
+		vary(parents.subList(elites, size));
+		evaluate(parents);
+	}
+
+	private void stepReplacement() {
+		final int size = size();
+		final List<Genome> offsprings = mPopulation.current();
+
+		long start = mRecorder.begin();
+		final int elites = selectElites(offsprings);
+		mRecorder.end(Phase.SELECTION, start);
+
+		vary(offsprings);
+		evaluate(offsprings);
+
+		start = mRecorder.begin();
+		mEvaluator.execute(size - elites, mRandom.nextLong(), new ParallelEvaluator.RandomTask() {
+
+			@Override
+			public void run(int from, int to, Random random) {
+				for (int i = from; i < to; ++i) {
+					Genome offspring = offsprings.get(i);
+					Genome opponent = offsprings.get(random.nextInt(size));
+					// the offspring keeps its slot on a tie.
+					Genome winner = offspring.getFitness() < opponent.getFitness() ? opponent : offspring;
+					mPopulation.next(elites + i).copyFrom(winner);
+				}
+			}
+		});
+
+		mPopulation.swap();
+		if (mSharing != null) mSharing.apply(mPopulation.current(), mEvaluator);
+		mRecorder.end(Phase.SELECTION, start);
+	}
+
+	private void vary(List<Genome> genomes) {
+		long start = mRecorder.begin();
+		Variation.crossover(genomes, mCrossover, mCrossoverProb, mRandom, mEvaluator);
+		mRecorder.end(Phase.CROSSOVER, start);
+
+		start = mRecorder.begin();
+		Variation.mutate(genomes, mMutator, mRandom, mEvaluator);
+		mRecorder.end(Phase.MUTATION, start);
+	}
+
+	// the steady-state step. two parents are chosen by the selector and crossed over and mutated into two offsprings,
+	// and each offspring replaces a genome of the current generation in place. only the offsprings are evaluated and
+	// only the replaced genomes are counted again, so a step costs O(N) with the fitness sharing instead of O(N^2).
+	public void steadyStep(Replacement replacement) {
+		List<Genome> genomes = mPopulation.current();
+		long start = mRecorder.begin();
+		mSelector.prepare(genomes);
+		mSelector.select(genomes, mRandom, mSelected, 0, mOffsprings.length);
+		Genome mom = mOffsprings[0];
+		Genome papa = mOffsprings[1];
+		mom.copyFrom(genomes.get(mSelected[0]));
+		papa.copyFrom(genomes.get(mSelected[1]));
+		mRecorder.end(Phase.SELECTION, start);
+
+		start = mRecorder.begin();
+		if (mRandom.nextFloat() <= mCrossoverProb && !mom.equals(papa)) mCrossover.cross(mom, papa, mRandom);
+		mRecorder.end(Phase.CROSSOVER, start);
+
+		start = mRecorder.begin();
+		mMutator.mutate(mom, mRandom);
+		mMutator.mutate(papa, mRandom);
+		mRecorder.end(Phase.MUTATION, start);
+
+		for (Genome offspring : mOffsprings) {
+			start = mRecorder.begin();
+			int evaluations = evaluate(offspring, mRandom);
+			int target = replacement == Replacement.WORST ? selectWorst(genomes) : selectLoser(genomes);
+			replace(genomes, target, offspring);
+
+			mRecorder.addEvaluations(evaluations);
+			mRecorder.end(Phase.EVALUATION, start);
+		}
+	}
+
+	private int selectLoser(List<Genome> genomes) {
+		int index1 = mRandom.nextInt(genomes.size());
+		int index2 = mRandom.nextInt(genomes.size());
+		return genomes.get(index1).getFitness() < genomes.get(index2).getFitness() ? index1 : index2;
+	}
+
+	private static int selectWorst(List<Genome> genomes) {
+		int worst = 0;
+		for (int i = 1; i < genomes.size(); ++i) {
+			if (genomes.get(worst).getFitness() > genomes.get(i).getFitness()) worst = i;
+		}
+
+		return worst;
+	}
+
+	// the immigrant, which must be evaluated, replaces the genome 'index' of the current generation,
+	// e.g. from another island, see IslandModel.
+	public void migrate(int index, Genome immigrant) {
+		if (!immigrant.isEvaluated()) throw new IllegalArgumentException("the immigrant is not evaluated.");
+
+		replace(mPopulation.current(), index, immigrant);
+	}
+
+	// the genome 'index' of the current generation is replaced, and only it is counted again.
+	private void replace(List<Genome> genomes, int index, Genome genome) {
+		Genome target = genomes.get(index);
+		target.copyFrom(genome);
+		target.clearChanged();
+		mAlleles.update(index, target.buffer(), target.offset());
+		if (mSharing != null) mSharing.replace(genomes, index);
+	}
+
+	// the elites are copied into the head of the next generation, and it returns the number of them.
+	private int selectElites(List<Genome> genomes) {
+		if (mElites == 0) return 0;
+
+		int size = genomes.size();
+		for (int i = 0; i < size; ++i) {
+			mKeys[i] = (float) genomes.get(i).getFitness();
+		}
+
+		TopK.fill(mIndices, size);
+		TopK.select(mKeys, mIndices, size, mElites);
+		for (int i = 0; i < mElites; ++i) {
+			mPopulation.next(i).copyFrom(genomes.get(mIndices[i]));
+		}
+
+		return mElites;
+	}
+
+	// it repairs the changed genomes and evaluates the genomes which are not evaluated in parallel,
+	// and shares the fitness if the sharing is set.
+	private void evaluate(final List<Genome> genomes) {
+		long start = mRecorder.begin();
+		mEvaluations.set(0);
+		mEvaluator.execute(genomes.size(), mRandom.nextLong(), new ParallelEvaluator.RandomTask() {
+
+			@Override
+			public void run(int from, int to, Random random) {
+				int count = 0;
+				for (int i = from; i < to; ++i) {
+					count += evaluate(genomes.get(i), random);
+				}
+				mEvaluations.addAndGet(count);
+			}
+		});
+
+		if (mSharing != null) mSharing.apply(genomes, mEvaluator);
+
+		mRecorder.addEvaluations(mEvaluations.get());
+		mRecorder.end(Phase.EVALUATION, start);
+	}
+
+	// it returns the number of the evaluations of the repair and the fitness function, which don't include the ones
+	// found in the cache.
+	private int evaluate(Genome genome, Random random) {
+		int count = 0;
+		if (mRepair != null && genome.isChanged()) count += mRepair.repair(genome, random);
+		genome.clearChanged();
+		if (genome.isEvaluated()) return count;
+
+		FitnessCache cache = mCache;
+		if (cache != null) {
+			long[] cached = mCached.get();
+			if (cache.get(genome.buffer(), genome.offset(), genome.words(), cached)) {
+				setValue(genome, cached[0]);
+				return count;
+			}
+		}
+
+		if (mDelta != null) genome.setState(mDelta.getState(genome));
+		else genome.setRawFitness(mFunction.evaluate(genome));
+		if (cache != null) cache.put(genome.buffer(), genome.offset(), genome.words(), getValue(genome));
+
+		return count + 1;
+	}
+
+	// the value of an evaluated genome in the cache and the snapshot.
+	// it is the state of the delta fitness, or the bits of the raw fitness.
+	private long getValue(Genome genome) {
+		return mDelta != null ? genome.getState() : Double.doubleToLongBits(genome.getRawFitness());
+	}
+
+	private void setValue(Genome genome, long value) {
+		if (mDelta != null) genome.setState(value);
+		else genome.setRawFitness(Double.longBitsToDouble(value));
+	}
+
+	// it counts the genes of the current generation which are changed after the last count, see AlleleCounter.
+	// each chunk counts a range of the words of all genomes, so no count is shared between threads.
+	private void countAlleles() {
+		final List<Genome> genomes = mPopulation.current();
+		mEvaluator.execute(mAlleles.getWords(), new ParallelEvaluator.Task() {
+
+			@Override
+			public void run(int from, int to) {
+				if (from == to) return;
+
+				for (int i = 0; i < genomes.size(); ++i) {
+					Genome genome = genomes.get(i);
+					mAlleles.update(i, genome.buffer(), genome.offset(), from, to);
+				}
+			}
+		});
+	}
+
+	// it fills a snapshot of the checkpointer with the current generation and the random, and writes it in
+	// the background. it returns false if the checkpoint is skipped, because the previous snapshots are still
+	// being written.
+	public boolean checkpoint(Checkpointer checkpointer, int generation, double best) throws IOException {
+		Snapshot snapshot = checkpointer.acquire();
+		if (snapshot == null) return false;
+
+		List<Genome> genomes = mPopulation.current();
+		int words = Genome.getWords(mLength);
+		snapshot.set(generation, Double.doubleToLongBits(best), mRecorder.getTotalEvaluations(), mRandom,
+				genomes.size(), words);
+		for (int i = 0; i < genomes.size(); ++i) {
+			Genome genome = genomes.get(i);
+			System.arraycopy(genome.buffer(), genome.offset(), snapshot.genomes(), i * words, words);
+			snapshot.fitness()[i] = getValue(genome);
+		}
+
+		checkpointer.submit(snapshot);
+		return true;
+	}
+
+	// it restores the current generation, the random and the evaluations from the snapshot,
+	// and returns the generation of the snapshot.
+	public int restore(Snapshot snapshot) {
+		List<Genome> genomes = mPopulation.current();
+		int words = Genome.getWords(mLength);
+		if (snapshot.size() != genomes.size() || snapshot.getWords() != words) {
+			throw new IllegalArgumentException("the snapshot is not of this population: " + snapshot.size() + " x "
+					+ snapshot.getWords());
+		}
+
+		for (int i = 0; i < genomes.size(); ++i) {
+			Genome genome = genomes.get(i);
+			genome.load(snapshot.genomes(), i * words);
+			setValue(genome, snapshot.fitness()[i]);
+		}
+
+		mRandom = snapshot.getRandom();
+		mRecorder.reset(snapshot.getGeneration(), snapshot.getEvaluations());
+		if (mSharing != null) mSharing.apply(genomes, mEvaluator);
+		mAlleles.reset(genomes.size());
+		countAlleles();
+		return snapshot.getGeneration();
+	}
+
+	// the genome of the highest raw fitness in the current generation.
+	public Genome getBest() {
+		Genome best = null;
+		for (Genome genome : mPopulation.current()) {
+			if (best == null || best.getRawFitness() < genome.getRawFitness()) best = genome;
+		}
+
+		return best;
+	}
+
+	// it passes the average and the best of the raw fitness to the listener, and returns the best.
+	public double endGeneration() {
+		List<Genome> genomes = mPopulation.current();
+		double best = getBest().getRawFitness();
+		if (!mRecorder.isEnabled()) return best;
+
+		double total = 0;
+		for (Genome genome : genomes) {
+			total += genome.getRawFitness();
+		}
+
+		mRecorder.endGeneration(best, total / genomes.size(), getDiversity());
+		return best;
+	}
+
+	// the diversity of the current generation, see MetricsRecorder.getDiversity().
+	public double getDiversity() {
+		return mAlleles.getDiversity();
+	}
+}
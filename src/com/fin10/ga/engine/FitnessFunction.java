@@ -0,0 +1,10 @@
+package com.fin10.ga.engine;
+
+// the problem which is solved by the engine. the higher fitness is the better,
+// so a problem which minimizes a value returns the negative value.
+// it is called by the evaluating threads concurrently, so it must be thread-safe.
+public interface FitnessFunction {
+
+	// the genes must not be changed.
+	double evaluate(Genome genome);
+}
@@ -0,0 +1,66 @@
+package com.fin10.ga.engine;
+
+import java.util.List;
+
+import com.fin10.ga.util.NicheCounter;
+import com.fin10.ga.util.ParallelEvaluator;
+
+// the fitness sharing. the fitness of a genome is its raw fitness divided by its niche count,
+// the sum of h(d) = 1 - d/radius over the other genomes within the hamming distance 'radius'.
+// the niche counts are kept by a NicheCounter over the slots of the population, so only the slots whose genes are
+// changed after the last apply() are counted again, and each pair is calculated only once.
+public final class FitnessSharing {
+
+	private final float mRadius;
+	// it is created by the first apply(), with the evaluator of the engine.
+	private NicheCounter mCounter = null;
+
+	public FitnessSharing(float radius) {
+		if (radius <= 0) throw new IllegalArgumentException("radius must be positive: " + radius);
+
+		mRadius = radius;
+	}
+
+	public float share(int distance) {
+		return distance < mRadius ? 1.f - distance / mRadius : 0.f;
+	}
+
+	// the population must be evaluated.
+	void apply(List<Genome> population, ParallelEvaluator evaluator) {
+		if (mCounter == null) mCounter = new NicheCounter(mRadius, evaluator);
+
+		int size = population.size();
+		if (mCounter.size() != size) {
+			int words = population.get(0).words();
+			long[] genes = mCounter.prepare(size, words);
+			for (int i = 0; i < size; ++i) {
+				Genome genome = population.get(i);
+				System.arraycopy(genome.buffer(), genome.offset(), genes, i * words, words);
+			}
+			mCounter.rebuild();
+		} else {
+			for (int i = 0; i < size; ++i) {
+				Genome genome = population.get(i);
+				mCounter.change(i, genome.buffer(), genome.offset());
+			}
+			mCounter.update();
+		}
+
+		share(population);
+	}
+
+	// only the genome i of the population is changed after the last apply(), e.g. by the steady-state step.
+	void replace(List<Genome> population, int i) {
+		Genome genome = population.get(i);
+		mCounter.replace(i, genome.buffer(), genome.offset());
+		share(population);
+	}
+
+	private void share(List<Genome> population) {
+		for (int i = 0; i < population.size(); ++i) {
+			Genome genome = population.get(i);
+			double count = mCounter.getNicheCount(i);
+			genome.setFitness(count > 0 ? genome.getRawFitness() / count : genome.getRawFitness());
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package com.fin10.ga.engine;
+
+// the access of the operators to the genes of a bit-string individual, so the same crossover and mutation change
+// the genomes of the engine and the individuals of each problem. an individual which keeps its evaluation, or any
+// count of the population, up to date applies each change to it here.
+// it is called by several threads at once for different individuals.
+public interface Genes<G> {
+
+	int length(G genome);
+
+	// it inverts the gene.
+	void flip(G genome, int index);
+
+	// it swaps the genes in [from, length) of the two individuals.
+	void swapTail(G genome, G other, int from);
+}
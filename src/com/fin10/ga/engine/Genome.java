@@ -0,0 +1,275 @@
+package com.fin10.ga.engine;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// a bit genome packed into 64-bit words, which is the genome of every problem on the engine.
+// the gene i is stored at the bit (i % 64) of the word (i / 64) and the unused bits of the last word are always 0.
+// the words may be a part of a larger buffer which is shared with other genomes, see Population.
+//
+// the raw fitness is given by the fitness function and the fitness is used by the selection.
+// they are same unless the fitness is shared, see FitnessSharing. the higher fitness is the better.
+// any change of the genes invalidates them, unless the fitness is a DeltaFitness. then the state of an evaluated genome
+// follows each changed gene, so the genome stays evaluated.
+public final class Genome {
+
+	// the genes of the genomes for the operators, see Genes.
+	public static final Genes<Genome> GENES = new Genes<Genome>() {
+
+		@Override
+		public int length(Genome genome) {
+			return genome.mLength;
+		}
+
+		@Override
+		public void flip(Genome genome, int index) {
+			genome.flip(index);
+		}
+
+		@Override
+		public void swapTail(Genome genome, Genome other, int from) {
+			genome.swapTail(other, from);
+		}
+	};
+
+	private final long[] mBuffer;
+	private final int mOffset;
+	private final int mWords;
+	private final int mLength;
+	// the fitness which keeps the state up to date, or null.
+	private final DeltaFitness mDelta;
+
+	private boolean mEvaluated = false;
+	private long mState = 0;
+	private double mRawFitness = 0;
+	private double mFitness = 0;
+	// whether the genes are changed after the last evaluation of the engine, even if the delta keeps it evaluated.
+	// the engine repairs only the changed genomes.
+	private boolean mChanged = false;
+
+	public Genome(int length) {
+		this(length, null);
+	}
+
+	// the genome of a delta fitness, e.g. for a solver which builds a solution outside of the engine.
+	public Genome(int length, DeltaFitness delta) {
+		this(new long[getWords(length)], 0, length, delta);
+	}
+
+	// the genome uses the words in [offset, offset + getWords(length)) of the buffer.
+	Genome(long[] buffer, int offset, int length, DeltaFitness delta) {
+		mBuffer = buffer;
+		mOffset = offset;
+		mWords = getWords(length);
+		mLength = length;
+		mDelta = delta;
+	}
+
+	// the number of words for the length.
+	public static int getWords(int length) {
+		return (length + 63) >>> 6;
+	}
+
+	public int length() {
+		return mLength;
+	}
+
+	public int words() {
+		return mWords;
+	}
+
+	// the buffer and the offset of the words, for the kernels and the cache. the words must not be changed through it.
+	public long[] buffer() {
+		return mBuffer;
+	}
+
+	public int offset() {
+		return mOffset;
+	}
+
+	public long word(int index) {
+		return mBuffer[mOffset + index];
+	}
+
+	public boolean get(int index) {
+		return (mBuffer[mOffset + (index >>> 6)] & (1L << index)) != 0;
+	}
+
+	// nothing is changed if the gene is already the value.
+	public void set(int index, boolean value) {
+		if (get(index) != value) flip(index);
+	}
+
+	public void flip(int index) {
+		mBuffer[mOffset + (index >>> 6)] ^= 1L << index;
+		mChanged = true;
+		if (mDelta != null && mEvaluated) setState(mDelta.flip(mState, index, get(index)));
+		else mEvaluated = false;
+	}
+
+	// it swaps the genes in [from, length) with the other genome.
+	// the whole words are swapped and only the boundary word is masked.
+	// it returns false if the genes are same, so nothing is changed.
+	public boolean swapTail(Genome other, int from) {
+		boolean delta = mDelta != null && mEvaluated;
+		boolean otherDelta = other.mDelta != null && other.mEvaluated;
+		long state = mState;
+		long otherState = other.mState;
+		boolean swapped = false;
+		for (int i = from >>> 6; i < mWords; ++i) {
+			long diff = word(i) ^ other.word(i);
+			if (i == from >>> 6) diff &= -1L << from;
+			if (diff == 0) continue;
+
+			mBuffer[mOffset + i] ^= diff;
+			other.mBuffer[other.mOffset + i] ^= diff;
+			swapped = true;
+			if (!delta && !otherDelta) continue;
+
+			// only the different genes are swapped, so each of them becomes its opposite in both genomes.
+			long word = word(i);
+			for (long bits = diff; bits != 0; bits &= bits - 1) {
+				int bit = Long.numberOfTrailingZeros(bits);
+				boolean value = (word >>> bit & 1) != 0;
+				if (delta) state = mDelta.flip(state, (i << 6) + bit, value);
+				if (otherDelta) otherState = other.mDelta.flip(otherState, (i << 6) + bit, !value);
+			}
+		}
+
+		if (swapped) {
+			mChanged = true;
+			other.mChanged = true;
+			if (delta) setState(state);
+			else mEvaluated = false;
+			if (otherDelta) other.setState(otherState);
+			else other.mEvaluated = false;
+		}
+
+		return swapped;
+	}
+
+	// it sets the genes randomly in place. each gene will be 1 in 50% probability.
+	public void randomize(Random random) {
+		for (int i = 0; i < mWords; ++i) {
+			mBuffer[mOffset + i] = random.nextLong();
+		}
+
+		int rest = mLength & 63;
+		if (rest != 0) mBuffer[mOffset + mWords - 1] &= (1L << rest) - 1;
+		mEvaluated = false;
+		mChanged = true;
+	}
+
+	// it sets all genes to 0.
+	public void clear() {
+		Arrays.fill(mBuffer, mOffset, mOffset + mWords, 0);
+		mEvaluated = false;
+		mChanged = true;
+	}
+
+	// it copies the genes and the fitness of the other genome in place.
+	public void copyFrom(Genome other) {
+		if (mLength != other.mLength) throw new IllegalArgumentException("the length is different: " + other.mLength);
+
+		System.arraycopy(other.mBuffer, other.mOffset, mBuffer, mOffset, mWords);
+		mEvaluated = other.mEvaluated;
+		mState = other.mState;
+		mRawFitness = other.mRawFitness;
+		mFitness = other.mFitness;
+		mChanged = other.mChanged;
+	}
+
+	// it sets the genes of words[offset, offset + words), e.g. of a snapshot. the genome is not evaluated.
+	void load(long[] words, int offset) {
+		System.arraycopy(words, offset, mBuffer, mOffset, mWords);
+		mEvaluated = false;
+		mChanged = false;
+	}
+
+	public int countOnes() {
+		int count = 0;
+		for (int i = 0; i < mWords; ++i) {
+			count += Long.bitCount(word(i));
+		}
+
+		return count;
+	}
+
+	public boolean isEvaluated() {
+		return mEvaluated;
+	}
+
+	// the state of the delta fitness, which is valid only if the genome is evaluated.
+	public long getState() {
+		return mState;
+	}
+
+	// it sets the state of the delta fitness and the fitness which is derived from it, so the genome is evaluated.
+	public void setState(long state) {
+		mState = state;
+		setRawFitness(mDelta.getFitness(state));
+	}
+
+	public double getRawFitness() {
+		return mRawFitness;
+	}
+
+	public double getFitness() {
+		return mFitness;
+	}
+
+	// it sets both the raw fitness and the fitness, so the genome is evaluated, e.g. by a repair.
+	public void setRawFitness(double fitness) {
+		mEvaluated = true;
+		mRawFitness = fitness;
+		mFitness = fitness;
+	}
+
+	void setFitness(double fitness) {
+		mFitness = fitness;
+	}
+
+	boolean isChanged() {
+		return mChanged;
+	}
+
+	void clearChanged() {
+		mChanged = false;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (!(obj instanceof Genome)) return false;
+
+		Genome other = (Genome) obj;
+		if (mLength != other.mLength) return false;
+
+		for (int i = 0; i < mWords; ++i) {
+			if (word(i) != other.word(i)) return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = mLength;
+		for (int i = 0; i < mWords; ++i) {
+			long word = word(i);
+			hash = 31 * hash + (int) (word ^ (word >>> 32));
+		}
+
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder strBuilder = new StringBuilder(mLength);
+		for (int i = 0; i < mLength; ++i) {
+			strBuilder.append(get(i) ? '1' : '0');
+		}
+
+		return strBuilder.toString();
+	}
+}
@@ -0,0 +1,223 @@
+package com.fin10.ga.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.fin10.ga.metrics.MetricsRecorder;
+import com.fin10.ga.termination.Progress;
+import com.fin10.ga.termination.Termination;
+import com.fin10.ga.util.AlleleCounter;
+import com.fin10.ga.util.FastRandom;
+import com.fin10.ga.util.TopK;
+
+// it evolves several sub-populations, islands, on their own threads. each island is an engine of the same problem.
+// every 'interval' generations, the best genomes of each island migrate to another island and replace the worst ones.
+// the islands run each generation together, so the termination is checked between the generations like a single population.
+public final class IslandModel {
+
+	private static final int MIGRATION_INTERVAL = 5;
+	private static final int MIGRANTS = 2;
+
+	public enum Topology {
+		// the island i sends its migrants to the island i+1.
+		RING,
+		// each island sends its migrants to a random other island.
+		RANDOM
+	}
+
+	private final Engine[] mIslands;
+	private final int mInterval;
+	private final int mMigrants;
+	private final Topology mTopology;
+	private final Random mRandom;
+	// the migrants of each island. they are copied out before any island receives them, so a migrant moves only
+	// one island at once.
+	private final Genome[][] mEmigrants;
+	// the buffers of the top-k selection of the migrants and the replaced genomes.
+	private final float[] mKeys;
+	private final int[] mIndices;
+	// the allele counts of all islands, for the diversity of the termination.
+	private final int[] mOnes;
+
+	public IslandModel(Engine[] islands, long seed) {
+		this(islands, MIGRATION_INTERVAL, MIGRANTS, Topology.RING, seed);
+	}
+
+	// the islands must have the same length and run on their own evaluators, because they are stepped at once.
+	public IslandModel(Engine[] islands, int interval, int migrants, Topology topology, long seed) {
+		if (islands.length < 1) throw new IllegalArgumentException("islands must not be empty.");
+		if (interval < 1) throw new IllegalArgumentException("interval must be positive: " + interval);
+
+		int size = Integer.MAX_VALUE;
+		for (Engine island : islands) {
+			size = Math.min(size, island.size());
+		}
+		if (migrants < 0 || migrants > size / 2) {
+			throw new IllegalArgumentException("migrants must be in [0, " + size / 2 + "]: " + migrants);
+		}
+
+		mIslands = islands.clone();
+		mInterval = interval;
+		mMigrants = migrants;
+		mTopology = topology;
+		mRandom = new FastRandom(seed);
+
+		int length = islands[0].length();
+		mEmigrants = new Genome[islands.length][migrants];
+		for (Genome[] emigrants : mEmigrants) {
+			for (int i = 0; i < migrants; ++i) {
+				emigrants[i] = new Genome(length);
+			}
+		}
+
+		int largest = 0;
+		for (Engine island : islands) {
+			largest = Math.max(largest, island.size());
+		}
+		mKeys = new float[largest];
+		mIndices = new int[largest];
+		mOnes = new int[length];
+	}
+
+	// it generates the islands and runs them until the termination stops it, and returns the best raw fitness.
+	// the progress is of all islands: the best of them, the sum of their evaluations and the diversity of their union.
+	public double run(Termination termination) {
+		ExecutorService executor = Executors.newFixedThreadPool(mIslands.length);
+		try {
+			List<Callable<Double>> tasks = new ArrayList<>(mIslands.length);
+			for (final Engine island : mIslands) {
+				tasks.add(new Callable<Double>() {
+
+					@Override
+					public Double call() {
+						island.generate();
+						return island.endGeneration();
+					}
+				});
+			}
+
+			Progress progress = new Progress(false, new Progress.DiversitySource() {
+
+				@Override
+				public double getDiversity() {
+					return IslandModel.this.getDiversity();
+				}
+			});
+			progress.start(0);
+			progress.update(0, runAll(executor, tasks), getEvaluations());
+
+			tasks.clear();
+			for (final Engine island : mIslands) {
+				tasks.add(new Callable<Double>() {
+
+					@Override
+					public Double call() {
+						island.step();
+						return island.endGeneration();
+					}
+				});
+			}
+
+			for (int i = 0; !termination.isDone(progress); ++i) {
+				progress.update(i + 1, runAll(executor, tasks), getEvaluations());
+				if ((i + 1) % mInterval == 0) migrate();
+			}
+
+			return progress.getBest();
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new IllegalStateException(cause);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	// it runs the tasks of all islands at once, and returns the best of their results.
+	private static double runAll(ExecutorService executor, List<Callable<Double>> tasks)
+			throws InterruptedException, ExecutionException {
+		double best = Double.NEGATIVE_INFINITY;
+		for (Future<Double> future : executor.invokeAll(tasks)) {
+			best = Math.max(best, future.get());
+		}
+
+		return best;
+	}
+
+	// all migrants leave their islands first, so a migrant moves only one island at once.
+	private void migrate() {
+		int islands = mIslands.length;
+		if (islands < 2 || mMigrants == 0) return;
+
+		for (int i = 0; i < islands; ++i) {
+			List<Genome> genomes = mIslands[i].getPopulation();
+			select(genomes, false);
+			for (int j = 0; j < mMigrants; ++j) {
+				mEmigrants[i][j].copyFrom(genomes.get(mIndices[j]));
+			}
+		}
+
+		for (int i = 0; i < islands; ++i) {
+			int destination;
+			if (mTopology == Topology.RING) {
+				destination = (i + 1) % islands;
+			} else {
+				destination = (i + 1 + mRandom.nextInt(islands - 1)) % islands;
+			}
+
+			// the worst genomes are overwritten in place, because the genomes are reused by the island.
+			Engine island = mIslands[destination];
+			select(island.getPopulation(), true);
+			for (int j = 0; j < mMigrants; ++j) {
+				island.migrate(mIndices[j], mEmigrants[i][j]);
+			}
+		}
+	}
+
+	// it moves the indices of the best genomes, or the worst ones, to mIndices[0, migrants).
+	private void select(List<Genome> genomes, boolean worst) {
+		int size = genomes.size();
+		for (int i = 0; i < size; ++i) {
+			float fitness = (float) genomes.get(i).getFitness();
+			mKeys[i] = worst ? -fitness : fitness;
+		}
+
+		TopK.fill(mIndices, size);
+		TopK.select(mKeys, mIndices, size, mMigrants);
+	}
+
+	private long getEvaluations() {
+		long evaluations = 0;
+		for (Engine island : mIslands) {
+			evaluations += island.getEvaluations();
+		}
+
+		return evaluations;
+	}
+
+	private double getDiversity() {
+		int size = 0;
+		Arrays.fill(mOnes, 0);
+		for (Engine island : mIslands) {
+			AlleleCounter alleles = island.getAlleleCounter();
+			for (int j = 0; j < mOnes.length; ++j) {
+				mOnes[j] += alleles.getOnes(j);
+			}
+			size += alleles.getSize();
+		}
+
+		return MetricsRecorder.getDiversity(mOnes, mOnes.length, size);
+	}
+}
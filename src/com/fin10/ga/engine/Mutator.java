@@ -0,0 +1,10 @@
+package com.fin10.ga.engine;
+
+import java.util.Random;
+
+// it changes the genes of an offspring in place, and returns true if any gene is changed.
+// it is called by several threads at once for different individuals, each with its own random.
+public interface Mutator<G> {
+
+	boolean mutate(G genome, Random random);
+}
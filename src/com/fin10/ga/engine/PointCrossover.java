@@ -0,0 +1,31 @@
+package com.fin10.ga.engine;
+
+import java.util.Random;
+
+// the multi-point crossover. the tails after each of 'points' increasing cut points are swapped.
+// a cut point is never at the first gene, so an individual which is too short for the points is not crossed.
+public final class PointCrossover<G> implements Crossover<G> {
+
+	private final Genes<G> mGenes;
+	private final int mPoints;
+
+	public PointCrossover(Genes<G> genes, int points) {
+		if (points < 1) throw new IllegalArgumentException("points must be positive: " + points);
+
+		mGenes = genes;
+		mPoints = points;
+	}
+
+	@Override
+	public void cross(G mom, G papa, Random random) {
+		int length = mGenes.length(mom);
+		int startIdx = 1;
+		for (int j = mPoints; j > 0; --j) {
+			if (length - startIdx - j <= 0) return;
+
+			// calculates points to split genome.
+			startIdx += random.nextInt(length - startIdx - j);
+			mGenes.swapTail(mom, papa, startIdx);
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.fin10.ga.engine;
+
+import java.util.Arrays;
+import java.util.List;
+
+// two generations of genomes which are allocated only once.
+// the genes of each generation are kept in one flat long[] and the genomes are the views on it.
+// the next generation is written in place by copying the genomes of the current one, and then the generations are swapped.
+final class Population {
+
+	// the fixed-size lists backed by the arrays of the genomes.
+	private List<Genome> mCurrent;
+	private List<Genome> mNext;
+
+	// the genomes keep the state of the delta fitness if it is not null, see Genome.
+	Population(int size, int length, DeltaFitness delta) {
+		mCurrent = Arrays.asList(createGeneration(size, length, delta));
+		mNext = Arrays.asList(createGeneration(size, length, delta));
+	}
+
+	private static Genome[] createGeneration(int size, int length, DeltaFitness delta) {
+		int words = Genome.getWords(length);
+		long[] buffer = new long[size * words];
+		Genome[] genomes = new Genome[size];
+		for (int i = 0; i < size; ++i) {
+			genomes[i] = new Genome(buffer, i * words, length, delta);
+		}
+
+		return genomes;
+	}
+
+	int size() {
+		return mCurrent.size();
+	}
+
+	List<Genome> current() {
+		return mCurrent;
+	}
+
+	Genome next(int index) {
+		return mNext.get(index);
+	}
+
+	// the next generation becomes the current one.
+	void swap() {
+		List<Genome> genomes = mCurrent;
+		mCurrent = mNext;
+		mNext = genomes;
+	}
+}
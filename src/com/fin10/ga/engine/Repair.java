@@ -0,0 +1,12 @@
+package com.fin10.ga.engine;
+
+import java.util.Random;
+
+// it changes the genes of an offspring after the crossover or the mutation changes them, e.g. into a feasible solution.
+// it is called by several threads at once for different genomes, each with its own random.
+public interface Repair {
+
+	// it returns the number of the evaluations which the repair costs. a repair which sets the fitness, see
+	// Genome.setRawFitness(), evaluates the genome, so the engine doesn't evaluate it again.
+	int repair(Genome genome, Random random);
+}
@@ -0,0 +1,40 @@
+package com.fin10.ga.engine;
+
+import java.util.List;
+import java.util.Random;
+
+import com.fin10.ga.util.RouletteWheel;
+
+// each genome is selected in proportion to its fitness, which must not be negative.
+// the wheel takes integer scores, so the fitness is scaled by SCALE and rounded.
+public final class RouletteSelector implements Selector {
+
+	private static final double SCALE = 1 << 16;
+
+	private final RouletteWheel.Method mMethod;
+	private final RouletteWheel mRouletteWheel = new RouletteWheel();
+	private long[] mScores = new long[0];
+
+	public RouletteSelector(RouletteWheel.Method method) {
+		mMethod = method;
+	}
+
+	@Override
+	public void prepare(List<Genome> population) {
+		int size = population.size();
+		if (mScores.length < size) mScores = new long[size];
+
+		for (int i = 0; i < size; ++i) {
+			mScores[i] = Math.round(population.get(i).getFitness() * SCALE);
+		}
+
+		mRouletteWheel.build(mScores, size);
+		mRouletteWheel.prepare(mMethod);
+	}
+
+	// each range is sampled separately, so the stochastic universal sampling spreads (to - from) points over the whole wheel.
+	@Override
+	public void select(List<Genome> population, Random random, int[] selected, int from, int to) {
+		mRouletteWheel.select(mMethod, random, selected, from, to);
+	}
+}
@@ -0,0 +1,12 @@
+package com.fin10.ga.engine;
+
+import java.util.Random;
+
+// it sets the genes of a genome of the initial population, which are random before, e.g. into a greedy solution.
+// it is called by several threads at once for different genomes, each with its own random.
+public interface Seeder {
+
+	// index is the position in the population, so a few genomes may be seeded differently from the others.
+	// it returns the number of the evaluations which the seeding costs, like Repair.
+	int seed(int index, Genome genome, Random random);
+}
@@ -0,0 +1,17 @@
+package com.fin10.ga.engine;
+
+import java.util.List;
+import java.util.Random;
+
+// it selects the parents of the next generation by the fitness of the population.
+// select() is called by several threads at once for the disjoint ranges, each with its own random,
+// so anything shared by them must be built in prepare() and only read in select().
+public interface Selector {
+
+	// it is called once per generation before select(), by the thread which runs the generations.
+	// the population is evaluated.
+	void prepare(List<Genome> population);
+
+	// it fills selected[from, to) with the indices of the selected genomes.
+	void select(List<Genome> population, Random random, int[] selected, int from, int to);
+}
@@ -0,0 +1,34 @@
+package com.fin10.ga.engine;
+
+import java.util.List;
+import java.util.Random;
+
+// each selected genome is the best of 'size' random genomes.
+public final class TournamentSelector implements Selector {
+
+	private final int mSize;
+
+	public TournamentSelector(int size) {
+		if (size < 1) throw new IllegalArgumentException("size must be positive: " + size);
+
+		mSize = size;
+	}
+
+	@Override
+	public void prepare(List<Genome> population) {
+	}
+
+	@Override
+	public void select(List<Genome> population, Random random, int[] selected, int from, int to) {
+		int size = population.size();
+		for (int i = from; i < to; ++i) {
+			int winner = random.nextInt(size);
+			for (int j = 1; j < mSize; ++j) {
+				int opponent = random.nextInt(size);
+				if (population.get(winner).getFitness() < population.get(opponent).getFitness()) winner = opponent;
+			}
+
+			selected[i] = winner;
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.fin10.ga.engine;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.fin10.ga.util.ParallelEvaluator;
+
+// the parallel crossover and mutation of a population of the engine.
+// each chunk of the population draws from its own random, which is seeded from the given random in order,
+// so the result is reproducible for the same seed and the same thread count.
+public final class Variation {
+
+	private Variation() {
+	}
+
+	// the population is shuffled once, and then the pairs (i, i + size/2) are crossed over in the given probability.
+	// the same individuals are not crossed, because nothing would change.
+	// nothing is crossed over in the probability 0, so the population is not even shuffled.
+	public static <G> void crossover(final List<G> population, final Crossover<G> crossover, final float prob,
+			Random random, ParallelEvaluator evaluator) {
+		if (prob <= 0) return;
+
+		Collections.shuffle(population, random);
+
+		final int half = population.size() / 2;
+		evaluator.execute(half, random.nextLong(), new ParallelEvaluator.RandomTask() {
+
+			@Override
+			public void run(int from, int to, Random random) {
+				for (int i = from; i < to; ++i) {
+					if (random.nextFloat() <= prob) {
+						G mom = population.get(i);
+						G papa = population.get(i + half);
+						if (!mom.equals(papa)) crossover.cross(mom, papa, random);
+					}
+				}
+			}
+		});
+	}
+
+	// each individual is mutated by the mutator.
+	public static <G> void mutate(final List<G> population, final Mutator<G> mutator, Random random,
+			ParallelEvaluator evaluator) {
+		evaluator.execute(population.size(), random.nextLong(), new ParallelEvaluator.RandomTask() {
+
+			@Override
+			public void run(int from, int to, Random random) {
+				for (int i = from; i < to; ++i) {
+					mutator.mutate(population.get(i), random);
+				}
+			}
+		});
+	}
+}
@@ -1,258 +1,245 @@
 package com.fin10.ga.hw1;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.Random;
-import java.util.Scanner;
 
+import com.fin10.ga.engine.BitFlipMutator;
+import com.fin10.ga.engine.Engine;
+import com.fin10.ga.engine.Genome;
+import com.fin10.ga.engine.PointCrossover;
+import com.fin10.ga.engine.Repair;
+import com.fin10.ga.engine.RouletteSelector;
+import com.fin10.ga.engine.Seeder;
+import com.fin10.ga.engine.TournamentSelector;
+import com.fin10.ga.metrics.ConsoleListener;
+import com.fin10.ga.metrics.MetricsListener;
+import com.fin10.ga.termination.Termination;
+import com.fin10.ga.termination.Terminations;
+import com.fin10.ga.util.FastRandom;
+import com.fin10.ga.util.FitnessCache;
+import com.fin10.ga.util.ParallelEvaluator;
+import com.fin10.ga.util.RouletteWheel;
+
+// the knapsack problem on the engine, see KnapsackFitness.
 public final class Knapsack {
-	
+
+	// how the initial population is generated.
+	public enum Seeding {
+		// each gene is 1 in 50% probability, so most of the genomes are overweight.
+		RANDOM,
+		// the random genomes are repaired and improved by KnapsackRepair, so all of them fit.
+		GREEDY,
+		// the first genome is the solution of the dynamic programming over the core items,
+		// CORE_SEED_RATIO of the population are its mutants which are repaired, and the rest are GREEDY.
+		HYBRID
+	}
+
 	private static final int POPULATION_SIZE = 100;
 	private static final int GENERATION_SIZE = 100;
-	
-	private static final int CROSSOVER_POINTS = 3;
-	private static final float CROSSOVER_PROB = 0.9f;
-	private static final float MUTATION_PROB = 0.01f;
-	
-	public static final class Item {
-		private final int weight;
-		private final int profit;
-		
-		private Item(int weight, int profit) {
-			this.weight = weight;
-			this.profit = profit;
-		}
-	}
-	
+	// the run of main() stops early if the best is not improved for this number of generations.
+	private static final int STALL_GENERATIONS = 30;
+
+	static final int CROSSOVER_POINTS = 3;
+	static final float CROSSOVER_PROB = 0.9f;
+	static final float MUTATION_PROB = 0.01f;
+
+	private static final int CHECKPOINT_INTERVAL = 10;
+	// the maximum number of the cells of the dynamic programming over the core items, see KnapsackRepair.solveCore().
+	private static final int CORE_CELLS = 1 << 24;
+	// the ratio of the mutants of the core solution in the population of the HYBRID seeding.
+	private static final float CORE_SEED_RATIO = 0.1f;
+
+	private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+	private final KnapsackFitness mFitness;
 	private final int mCapacity;
-	private final List<Item> mItems;
-	private final Random mRandom = new Random();
-	
+	// the items in columns, see KnapsackInstance.
+	private final int[] mWeights;
+	private final int[] mProfits;
+	// the seeds of the engines are drawn from it.
+	private final Random mRandom;
+	private final ParallelEvaluator mEvaluator;
+
+	private MetricsListener mListener = MetricsListener.NONE;
+	// the weight and the profit of the evaluated genomes. it is not used if null.
+	private FitnessCache mCache = null;
+	private Termination mTermination = Terminations.generations(GENERATION_SIZE);
+
+	private Seeding mSeeding = Seeding.RANDOM;
+	// the genomes are repaired after the crossover and the mutation if it is true.
+	private boolean mRepairing = false;
+	// it is built by the first setSeeding() or setRepairing() which needs it, before it is shared by the threads.
+	private KnapsackRepair mRepair = null;
+	// the solution of the core items for the HYBRID seeding. it is solved only once.
+	private Genome mCoreSolution = null;
+
+	// the first argument is the prefix of the checkpoint files. if it is given, each selection writes its checkpoint
+	// every CHECKPOINT_INTERVAL generations and resumes from it if it exists. it is ignored if it is "-".
+	// the second argument is the seeding, e.g. "hybrid". the genomes are repaired unless it is "random".
 	public static void main(String[] args) {
+		String checkpoint = args.length > 0 && !args[0].equals("-") ? args[0] : null;
+		Seeding seeding = args.length > 1 ? Seeding.valueOf(args[1].toUpperCase()) : Seeding.RANDOM;
 		try {
-			Knapsack s = new Knapsack("hw1.txt");
-			
+			Knapsack s = new Knapsack("hw1.txt", System.nanoTime(), THREADS);
+			s.setMetricsListener(new ConsoleListener());
+			s.setSeeding(seeding);
+			s.setRepairing(seeding != Seeding.RANDOM);
+			s.setTermination(Terminations.anyOf(Terminations.generations(GENERATION_SIZE),
+					Terminations.stall(STALL_GENERATIONS)));
+
 			// the roulette wheel selection
-			int bestOfBest = 0;
 			System.out.println("Roulette Wheel Selection");
-			System.out.print("#0 ");
-			List<List<Boolean>> chromosomes = s.generatePopulation(POPULATION_SIZE);
-			s.printEvaluation(chromosomes);
-			
-			for (int i = 0; i < GENERATION_SIZE; ++i) {
-				chromosomes = s.doRouletteWheelSelection(chromosomes);
-				s.doCrossover(chromosomes, CROSSOVER_PROB, CROSSOVER_POINTS);
-				s.doMutation(chromosomes, MUTATION_PROB);
-				
-				System.out.print("#" + (i+1) + " ");
-				int best = s.printEvaluation(chromosomes);
-				if (best > bestOfBest) bestOfBest = best;
-			}
-
+			int bestOfBest = s.run(s.createEngine(POPULATION_SIZE, true),
+					checkpoint != null ? checkpoint + ".roulette" : null);
 			System.out.println("the best of best:" + bestOfBest);
-			
+
 			// the tournament selection
-			bestOfBest = 0;
 			System.out.println("\nTournament Selection");
-			System.out.print("#0 ");
-			chromosomes = s.generatePopulation(POPULATION_SIZE);
-			s.printEvaluation(chromosomes);
-			
-			for (int i = 0; i < GENERATION_SIZE; ++i) {
-				chromosomes = s.doTournamentSelection(chromosomes);
-				s.doCrossover(chromosomes, CROSSOVER_PROB, CROSSOVER_POINTS);
-				s.doMutation(chromosomes, MUTATION_PROB);
-				
-				System.out.print("#" + (i+1) + " ");
-				int best = s.printEvaluation(chromosomes);
-				if (best > bestOfBest) bestOfBest = best;
-			}
-			
+			bestOfBest = s.run(s.createEngine(POPULATION_SIZE, false),
+					checkpoint != null ? checkpoint + ".tournament" : null);
 			System.out.println("the best of best:" + bestOfBest);
-			
-		} catch (FileNotFoundException e) {
+			s.shutdown();
+
+		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
-	public Knapsack(String fileName) throws FileNotFoundException {
-		FileInputStream in = null;
-		Scanner sc = null;
-		
-		try {
-			in = new FileInputStream(fileName);
-			sc = new Scanner(in);
-			mCapacity = sc.nextInt();
-			
-			List<Item> items = new ArrayList<>();
-			while (sc.hasNext()) {
-				int index = sc.nextInt();
-				int weight = sc.nextInt();
-				int profit = sc.nextInt();
-				items.add(new Item(weight, profit));
-			}
-			
-			mItems = Collections.unmodifiableList(items);
-			
-		} finally {
-			try {
-				if (in != null) in.close();
-				if (sc != null) sc.close();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-		}
+	public Knapsack(String fileName) throws IOException {
+		this(fileName, System.nanoTime(), 1);
 	}
-	
-	// it generates chromosomes with random values.
-	public List<List<Boolean>> generatePopulation(int size) {
-		List<List<Boolean>> chromosomes = new ArrayList<>(size);
-		while (chromosomes.size() < size) {
-			List<Boolean> chromosome = new ArrayList<>(mItems.size());
-			for (int i = 0; i < mItems.size(); ++i) {
-				chromosome.add(mRandom.nextBoolean());
-			}
-			
-			chromosomes.add(chromosome);
-		}
-		
-		return chromosomes;
+
+	// the engines are run by 'threads' threads.
+	// the result is reproducible for the same seed and the same thread count.
+	// the file may be in the text format or in the binary format of KnapsackInstance.
+	public Knapsack(String fileName, long seed, int threads) throws IOException {
+		this(KnapsackInstance.open(fileName), seed, threads);
 	}
 
-	// the roulette wheel selection
-	// it returns new chromosome list selected by the roulette wheel selection.
-	public List<List<Boolean>> doRouletteWheelSelection(List<List<Boolean>> chromosomes) {
-		int size = chromosomes.size();
-		List<Integer> scores = new ArrayList<>(size);
-		for (List<Boolean> chromosome : chromosomes) {
-			scores.add(getTotalProfit(chromosome));
-		}
-		
-		long total = 0;
-		for (int score : scores) {
-			total += score;
-		}
+	public Knapsack(KnapsackInstance instance, long seed, int threads) {
+		mFitness = new KnapsackFitness(instance);
+		mRandom = new FastRandom(seed);
+		mEvaluator = new ParallelEvaluator(threads);
+		mCapacity = instance.getCapacity();
+		mWeights = instance.getWeights();
+		mProfits = instance.getProfits();
+	}
 
-		List<List<Boolean>> offsprings = new ArrayList<>(size);
-		while (offsprings.size() < size) {
-			long sum = 0;
-			long point = total <= 0 ? 0 : Math.abs(mRandom.nextLong()) % total;
-			for (int i = 0; i < size; ++i) {
-				sum += scores.get(i);
-				if (point <= sum) {
-					offsprings.add(new ArrayList<>(chromosomes.get(i)));
-					break;
-				}
-			}
-		}
-		
-		return offsprings;
+	public void shutdown() {
+		mEvaluator.shutdown();
 	}
 
-	// the tournament selection
-	// it returns new chromosome list selected by the tournament selection.
-	public List<List<Boolean>> doTournamentSelection(List<List<Boolean>> chromosomes) {
-		int size = chromosomes.size();
-		List<List<Boolean>> offsprings = new ArrayList<>(size);
-		for (int i = 0; i < size; ++i) {
-			List<Boolean> opponent = chromosomes.get(mRandom.nextInt(size));
-			if (getTotalProfit(chromosomes.get(i)) < getTotalProfit(opponent)) {
-				offsprings.add(new ArrayList<>(opponent));
-			} else {
-				offsprings.add(new ArrayList<>(chromosomes.get(i)));
-			}
-		}
-		
-		return offsprings;
+	// the listener of the engines which are created after this.
+	public void setMetricsListener(MetricsListener listener) {
+		mListener = listener;
 	}
-	
-	// the crossover will be occurred in the prob probability.	
-	public  void doCrossover(List<List<Boolean>> chromosomes, float prob, int points) {
-		Collections.shuffle(chromosomes, mRandom);
-		
-		int size = chromosomes.size();
-		for (int i = 0; i < size/2; ++i) {
-			if (mRandom.nextFloat() <= prob) {
-				int startIdx = 1;
-				List<Boolean> mom = chromosomes.get(i);
-				List<Boolean> papa = chromosomes.get(i + size/2);
-				if (mom.equals(papa)) continue;
-
-				while (points > 0) {
-					// calculates points to split chromosome.
-					startIdx += mRandom.nextInt(mom.size() - startIdx - points);
-					List<Boolean> tmp = new ArrayList<>(mom);
-					for (int j = startIdx; j < mom.size(); ++j) {
-						mom.set(j, papa.get(j));
-						papa.set(j, tmp.get(j));
-					}
-					
-					--points;
-				}
-			}
-		}
+
+	// the policy which stops run(). it is GENERATION_SIZE generations by default.
+	public void setTermination(Termination termination) {
+		mTermination = termination;
+	}
+
+	// the seeding of the engines which are created after this. it is RANDOM by default.
+	public void setSeeding(Seeding seeding) {
+		if (seeding != Seeding.RANDOM) ensureRepair();
+		mSeeding = seeding;
 	}
-	
-	// the mutation will be occurred in the prob probability.
-	public void doMutation(List<List<Boolean>> chromosomes, float prob) {
-		for (List<Boolean> chromosome : chromosomes) {
-			for (int i = 0; i < chromosome.size(); ++i) {
-				if (mRandom.nextFloat() <= prob) {
-					// inverts value.
-					chromosome.set(i, !chromosome.get(i));
+
+	// if it is true, each genome of the engines which are created after this is repaired and improved greedily after
+	// it is changed by the crossover or the mutation, see KnapsackRepair. the changed items are applied to the state
+	// of the weight and the profit, so the repair costs no evaluation. it is false by default.
+	public void setRepairing(boolean repairing) {
+		if (repairing) ensureRepair();
+		mRepairing = repairing;
+	}
+
+	private void ensureRepair() {
+		if (mRepair == null) mRepair = new KnapsackRepair(mCapacity, mWeights, mProfits);
+	}
+
+	// the weight and the profit of a genome are looked up in the cache before they are calculated.
+	// they are kept up to date by the mutation and the crossover, so only new genomes are looked up.
+	public void setFitnessCache(FitnessCache cache) {
+		mCache = cache;
+	}
+
+	// it creates the engine of the roulette wheel or the tournament selection with the settings.
+	public Engine createEngine(int size, boolean roulette) {
+		Engine engine = new Engine(mFitness, mFitness.length(), size, mRandom.nextLong(), mEvaluator);
+		if (roulette) engine.setSelector(new RouletteSelector(RouletteWheel.Method.BINARY_SEARCH));
+		else engine.setSelector(new TournamentSelector(2));
+		engine.setCrossover(new PointCrossover<>(Genome.GENES, CROSSOVER_POINTS), CROSSOVER_PROB);
+		engine.setMutator(new BitFlipMutator<>(Genome.GENES, MUTATION_PROB));
+		engine.setMetricsListener(mListener);
+		engine.setFitnessCache(mCache);
+		if (mSeeding != Seeding.RANDOM) engine.setSeeder(createSeeder(size));
+		if (mRepairing) {
+			engine.setRepair(new Repair() {
+
+				@Override
+				public int repair(Genome genome, Random random) {
+					int evaluations = evaluate(genome);
+					mRepair.repair(genome);
+					return evaluations;
 				}
-			}
+			});
 		}
+
+		return engine;
 	}
-	
-	// it prints the average of profits and the best of profit in chromosomes.
-	// and it returns the best of profit.
-	public int printEvaluation(List<List<Boolean>> chromosomes) {
-		int best = 0;
-		long total = 0;
-		for (List<Boolean> chromosome : chromosomes) {
-			int weight = getTotalWeight(chromosome);
-			if (weight <= mCapacity) {
-				int profit = getTotalProfit(chromosome); 
-				total += profit;
-				
-				if (best < profit) best = profit;
-			}
-		}
-		
-		System.out.println("avg:" + (float) total / chromosomes.size() + ", best:" + best);
-		return best;
+
+	// it runs the engine until the termination stops it, and returns the best of best.
+	// if the checkpoint file is given, it resumes from the file and writes it every CHECKPOINT_INTERVAL generations.
+	public int run(Engine engine, String checkpoint) throws IOException {
+		if (checkpoint == null) return (int) engine.run(mTermination);
+
+		return (int) engine.run(mTermination, checkpoint, CHECKPOINT_INTERVAL);
 	}
-	
-	private int getTotalWeight(List<Boolean> chromosome) {
-		int total = 0;
-		int size = chromosome.size();
-		for (int i = 0; i < size; ++i) {
-			if (chromosome.get(i)) {
-				total += mItems.get(i).weight;
+
+	// the random genomes are repaired by the GREEDY seeding, and the first ones are the mutants of the core solution
+	// by the HYBRID seeding. the core solution is solved by the first HYBRID seeder, which is counted as one evaluation.
+	private Seeder createSeeder(int size) {
+		int mutants = 0;
+		int evaluations = 0;
+		if (mSeeding == Seeding.HYBRID) {
+			mutants = Math.min(size, Math.max(1, (int) (size * CORE_SEED_RATIO)));
+			if (mCoreSolution == null) {
+				mCoreSolution = new Genome(mFitness.length(), mFitness);
+				mRepair.solveCore(mCoreSolution, CORE_CELLS);
+				evaluations = 1;
 			}
 		}
-		
-		return total;
-	}
 
-	private int getTotalProfit(List<Boolean> chromosome) {
-		int total = 0;
-		int weight = 0;
-		int size = chromosome.size();
-		for (int i = 0; i < size; ++i) {
-			if (chromosome.get(i)) {
-				total += mItems.get(i).profit;
-				weight += mItems.get(i).weight;
-				
-				if (weight > mCapacity) return 0;
+		final int coreMutants = mutants;
+		final int coreEvaluations = evaluations;
+		final BitFlipMutator<Genome> mutator = new BitFlipMutator<>(Genome.GENES, MUTATION_PROB);
+		return new Seeder() {
+
+			@Override
+			public int seed(int index, Genome genome, Random random) {
+				if (index < coreMutants) {
+					// the first one is the core solution itself.
+					genome.copyFrom(mCoreSolution);
+					if (index == 0) return coreEvaluations;
+
+					mutator.mutate(genome, random);
+					mRepair.repair(genome);
+					return 0;
+				}
+
+				int count = evaluate(genome);
+				mRepair.repair(genome);
+				return count;
 			}
-		}
-		
-		return total;
+		};
+	}
+
+	// it calculates the weight and the profit of a genome which is not evaluated, which the repair needs.
+	// it returns the number of the evaluations.
+	private int evaluate(Genome genome) {
+		if (genome.isEvaluated()) return 0;
+
+		genome.setState(mFitness.getState(genome));
+		return 1;
 	}
 }
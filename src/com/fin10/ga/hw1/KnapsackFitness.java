@@ -0,0 +1,64 @@
+package com.fin10.ga.hw1;
+
+import com.fin10.ga.engine.DeltaFitness;
+import com.fin10.ga.engine.Genome;
+import com.fin10.ga.util.Kernels;
+
+// the knapsack problem as a fitness function of the engine.
+// the gene i is whether the item i is in the knapsack, and the fitness is the total profit, or 0 if it is overweight.
+// the state of a genome is its total weight and profit, so each changed item is applied to them,
+// and a genome is calculated only once even if it is crossed over, mutated or repaired.
+public final class KnapsackFitness implements DeltaFitness {
+
+	private static final Kernels KERNELS = Kernels.get();
+
+	private final int mCapacity;
+	private final int[] mWeights;
+	private final int[] mProfits;
+
+	public KnapsackFitness(KnapsackInstance instance) {
+		mCapacity = instance.getCapacity();
+		mWeights = instance.getWeights();
+		mProfits = instance.getProfits();
+	}
+
+	public int length() {
+		return mWeights.length;
+	}
+
+	@Override
+	public double evaluate(Genome genome) {
+		return getFitness(getState(genome));
+	}
+
+	@Override
+	public long getState(Genome genome) {
+		int weight = KERNELS.maskedSum(genome.buffer(), genome.offset(), mWeights, genome.length());
+		int profit = KERNELS.maskedSum(genome.buffer(), genome.offset(), mProfits, genome.length());
+		return pack(weight, profit);
+	}
+
+	@Override
+	public long flip(long state, int index, boolean value) {
+		int sign = value ? 1 : -1;
+		return pack(getWeight(state) + sign * mWeights[index], getProfit(state) + sign * mProfits[index]);
+	}
+
+	@Override
+	public double getFitness(long state) {
+		return getWeight(state) > mCapacity ? 0 : getProfit(state);
+	}
+
+	// the weight and the profit are packed into a long for the state, the cache and the snapshot.
+	static long pack(int weight, int profit) {
+		return ((long) weight << 32) | (profit & 0xFFFFFFFFL);
+	}
+
+	static int getWeight(long state) {
+		return (int) (state >> 32);
+	}
+
+	static int getProfit(long state) {
+		return (int) state;
+	}
+}
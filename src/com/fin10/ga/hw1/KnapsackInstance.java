@@ -0,0 +1,146 @@
+package com.fin10.ga.hw1;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import com.fin10.ga.util.Tokenizer;
+
+// the capacity and the items of a knapsack problem. the weights and the profits are stored in columns.
+//
+// the text format is the capacity followed by the lines of 'index weight profit'.
+// the binary format is the header, 'magic capacity count', followed by 'count' weights and 'count' profits.
+// all values of the binary format are big-endian 32-bit integers, so it is loaded by mapping the file.
+public final class KnapsackInstance {
+
+	// "KNAP". the text format can't start with it, because it starts with a number.
+	static final int MAGIC = 0x4B4E4150;
+	private static final int HEADER_SIZE = 3;
+
+	private final int mCapacity;
+	private final int[] mWeights;
+	private final int[] mProfits;
+
+	public KnapsackInstance(int capacity, int[] weights, int[] profits) {
+		if (weights.length != profits.length) {
+			throw new IllegalArgumentException("the number of weights and profits is different: "
+					+ weights.length + ", " + profits.length);
+		}
+
+		mCapacity = capacity;
+		mWeights = weights;
+		mProfits = profits;
+	}
+
+	// it converts the text format into the binary format.
+	// the arguments are the text file and the binary file.
+	public static void main(String[] args) throws IOException {
+		String source = args.length > 0 ? args[0] : "hw1.txt";
+		String target = args.length > 1 ? args[1] : "hw1.bin";
+
+		KnapsackInstance instance = readText(source);
+		instance.write(target);
+		System.out.println(instance.size() + " items, capacity " + instance.getCapacity() + " -> " + target);
+	}
+
+	// it reads the file in the binary format if it starts with the magic number, otherwise in the text format.
+	public static KnapsackInstance open(String fileName) throws IOException {
+		try (FileInputStream in = new FileInputStream(fileName)) {
+			ByteBuffer magic = ByteBuffer.allocate(4);
+			FileChannel channel = in.getChannel();
+			while (magic.hasRemaining()) {
+				if (channel.read(magic) < 0) break;
+			}
+
+			if (!magic.hasRemaining() && magic.getInt(0) == MAGIC) return readBinary(fileName);
+		}
+
+		return readText(fileName);
+	}
+
+	public static KnapsackInstance readText(String fileName) throws IOException {
+		try (Tokenizer tokenizer = Tokenizer.open(fileName)) {
+			int capacity = tokenizer.nextInt();
+
+			int size = 0;
+			int[] weights = new int[64];
+			int[] profits = new int[64];
+			while (tokenizer.hasNext()) {
+				int index = tokenizer.nextInt();
+				if (size == weights.length) {
+					weights = Arrays.copyOf(weights, size * 2);
+					profits = Arrays.copyOf(profits, size * 2);
+				}
+
+				weights[size] = tokenizer.nextInt();
+				profits[size] = tokenizer.nextInt();
+				++size;
+			}
+
+			return new KnapsackInstance(capacity, Arrays.copyOf(weights, size), Arrays.copyOf(profits, size));
+		}
+	}
+
+	// the columns are copied out of the mapped file in bulk, without parsing.
+	public static KnapsackInstance readBinary(String fileName) throws IOException {
+		try (FileInputStream in = new FileInputStream(fileName)) {
+			FileChannel channel = in.getChannel();
+			long length = channel.size();
+			if (length < HEADER_SIZE * 4) throw new IOException("the file is too short: " + fileName);
+
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			IntBuffer ints = buffer.asIntBuffer();
+			if (ints.get() != MAGIC) throw new IOException("not a knapsack instance: " + fileName);
+
+			int capacity = ints.get();
+			int size = ints.get();
+			if (size < 0 || ints.remaining() < 2L * size) {
+				throw new IOException("the file is truncated: " + fileName);
+			}
+
+			int[] weights = new int[size];
+			int[] profits = new int[size];
+			ints.get(weights);
+			ints.get(profits);
+
+			return new KnapsackInstance(capacity, weights, profits);
+		}
+	}
+
+	public void write(String fileName) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate((HEADER_SIZE + 2 * mWeights.length) * 4);
+		IntBuffer ints = buffer.asIntBuffer();
+		ints.put(MAGIC).put(mCapacity).put(mWeights.length);
+		ints.put(mWeights);
+		ints.put(mProfits);
+
+		try (FileOutputStream out = new FileOutputStream(fileName)) {
+			FileChannel channel = out.getChannel();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	public int getCapacity() {
+		return mCapacity;
+	}
+
+	public int size() {
+		return mWeights.length;
+	}
+
+	// the arrays are shared, not copied. they must not be modified.
+	int[] getWeights() {
+		return mWeights;
+	}
+
+	int[] getProfits() {
+		return mProfits;
+	}
+}
@@ -0,0 +1,171 @@
+package com.fin10.ga.hw1;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import com.fin10.ga.engine.Genome;
+
+// the greedy repair and the local improvement of the genomes by the ratio of the profit to the weight.
+// the repair removes the items of the lowest ratio until the genome fits in the capacity,
+// and the improvement adds the items of the highest ratio which still fit.
+// the items are sorted by the ratio only once. the genomes are of KnapsackFitness, so each changed item is applied to
+// the state of the weight and the profit, and a repaired genome is never evaluated again.
+final class KnapsackRepair {
+
+	private final int mCapacity;
+	private final int[] mWeights;
+	private final int[] mProfits;
+	// the items in the descending order of the ratio.
+	private final int[] mOrder;
+	// mMinWeights[k] is the minimum weight of the items in mOrder[k, length).
+	// the improvement stops when the free space is less than it.
+	private final int[] mMinWeights;
+
+	KnapsackRepair(int capacity, final int[] weights, final int[] profits) {
+		mCapacity = capacity;
+		mWeights = weights;
+		mProfits = profits;
+
+		int length = weights.length;
+		Integer[] order = new Integer[length];
+		for (int i = 0; i < length; ++i) {
+			order[i] = i;
+		}
+
+		// p(a) / w(a) > p(b) / w(b) is compared as p(a) * w(b) > p(b) * w(a).
+		// the items of no weight come first, because the comparison of them is not transitive.
+		Arrays.sort(order, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer a, Integer b) {
+				if (weights[a] == 0 || weights[b] == 0) {
+					if (weights[a] != weights[b]) return weights[a] == 0 ? -1 : 1;
+					return Integer.compare(profits[b], profits[a]);
+				}
+
+				return Long.compare((long) profits[b] * weights[a], (long) profits[a] * weights[b]);
+			}
+		});
+
+		mOrder = new int[length];
+		mMinWeights = new int[length + 1];
+		mMinWeights[length] = Integer.MAX_VALUE;
+		for (int k = length - 1; k >= 0; --k) {
+			mOrder[k] = order[k];
+			mMinWeights[k] = Math.min(mMinWeights[k + 1], weights[mOrder[k]]);
+		}
+	}
+
+	// it removes the items of the lowest ratio until it fits, and then improves it.
+	// the genome must be evaluated. it returns the number of the inverted genes, which counts an item twice
+	// if it is removed and then added again by the improvement.
+	int repair(Genome genome) {
+		int changes = 0;
+		for (int k = mOrder.length - 1; k >= 0 && KnapsackFitness.getWeight(genome.getState()) > mCapacity; --k) {
+			int item = mOrder[k];
+			if (genome.get(item)) {
+				genome.flip(item);
+				++changes;
+			}
+		}
+
+		return changes + improve(genome);
+	}
+
+	// it adds the items of the highest ratio which fit in the free space. the genome must be evaluated and fit.
+	// it returns the number of the added items.
+	int improve(Genome genome) {
+		int changes = 0;
+		int free = mCapacity - KnapsackFitness.getWeight(genome.getState());
+		for (int k = 0; k < mOrder.length && free >= mMinWeights[k]; ++k) {
+			int item = mOrder[k];
+			if (mWeights[item] <= free && !genome.get(item)) {
+				genome.flip(item);
+				free -= mWeights[item];
+				++changes;
+			}
+		}
+
+		return changes;
+	}
+
+	// it sets the genome to the solution of the dynamic programming over the core items, and returns its profit.
+	//
+	// the greedy takes the items in the order of the ratio until the break item, which doesn't fit.
+	// the items far before the break item are taken and the items far after it are not, in most of the optimal solutions.
+	// so only the core around the break item is solved exactly, with the capacity which is left by the items before it.
+	// the core is grown while the table of the dynamic programming has at most 'cells' cells,
+	// so it is the optimum of the whole instance if the instance is small enough.
+	int solveCore(Genome genome, int cells) {
+		int length = mOrder.length;
+		// the greedy takes the items in mOrder[0, brk), and the weight is their total weight.
+		int brk = 0;
+		long weight = 0;
+		while (brk < length && weight + mWeights[mOrder[brk]] <= mCapacity) {
+			weight += mWeights[mOrder[brk++]];
+		}
+
+		// the core is mOrder[lo, hi) and its capacity is the capacity without the items in mOrder[0, lo).
+		int lo = brk;
+		int hi = brk;
+		while (lo > 0 || hi < length) {
+			int nextLo = Math.max(0, lo - 1);
+			int nextHi = Math.min(length, hi + 1);
+			long nextWeight = nextLo < lo ? weight - mWeights[mOrder[nextLo]] : weight;
+			if ((long) (nextHi - nextLo) * (mCapacity - nextWeight + 1) > cells) break;
+
+			lo = nextLo;
+			hi = nextHi;
+			weight = nextWeight;
+		}
+
+		genome.clear();
+		int profit = 0;
+		for (int k = 0; k < lo; ++k) {
+			genome.flip(mOrder[k]);
+			profit += mProfits[mOrder[k]];
+		}
+
+		int capacity = (int) (mCapacity - weight);
+		int rows = hi - lo;
+		if (rows > 0) {
+			// best[x] is the best profit of the core items so far in the space x.
+			// the bit (r * (capacity + 1) + x) of 'take' is whether the core item r is taken for best[x].
+			int width = capacity + 1;
+			int[] best = new int[width];
+			long[] take = new long[(int) (((long) rows * width + 63) >>> 6)];
+			for (int r = 0; r < rows; ++r) {
+				int item = mOrder[lo + r];
+				int w = mWeights[item];
+				int p = mProfits[item];
+				long base = (long) r * width;
+				for (int x = capacity; x >= w; --x) {
+					int candidate = best[x - w] + p;
+					if (candidate > best[x]) {
+						best[x] = candidate;
+						long bit = base + x;
+						take[(int) (bit >>> 6)] |= 1L << bit;
+					}
+				}
+			}
+
+			int x = capacity;
+			for (int r = rows - 1; r >= 0; --r) {
+				long bit = (long) r * width + x;
+				if ((take[(int) (bit >>> 6)] & (1L << bit)) != 0) {
+					int item = mOrder[lo + r];
+					genome.flip(item);
+					x -= mWeights[item];
+				}
+			}
+
+			weight += capacity - x;
+			profit += best[capacity];
+		}
+
+		genome.setState(KnapsackFitness.pack((int) weight, profit));
+		// the items after the core may fit in the space which is left.
+		improve(genome);
+		return KnapsackFitness.getProfit(genome.getState());
+	}
+}
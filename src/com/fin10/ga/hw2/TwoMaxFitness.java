@@ -0,0 +1,15 @@
+package com.fin10.ga.hw2;
+
+import com.fin10.ga.engine.FitnessFunction;
+import com.fin10.ga.engine.Genome;
+
+// the two-max problem as a fitness function of the engine.
+// the raw fitness is the larger of the number of ones and zeros, and it is shared by the engine to keep both peaks.
+public final class TwoMaxFitness implements FitnessFunction {
+
+	@Override
+	public double evaluate(Genome genome) {
+		int ones = genome.countOnes();
+		return Math.max(ones, genome.length() - ones);
+	}
+}
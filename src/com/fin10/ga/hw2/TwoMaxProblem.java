@@ -1,268 +1,118 @@
 package com.fin10.ga.hw2;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Random;
 
+import com.fin10.ga.engine.BitFlipMutator;
+import com.fin10.ga.engine.Engine;
+import com.fin10.ga.engine.FitnessSharing;
+import com.fin10.ga.engine.Genome;
+import com.fin10.ga.engine.PointCrossover;
+import com.fin10.ga.engine.TournamentSelector;
+import com.fin10.ga.metrics.ConsoleListener;
+import com.fin10.ga.metrics.MetricsListener;
+import com.fin10.ga.termination.Termination;
+import com.fin10.ga.termination.Terminations;
+import com.fin10.ga.util.FastRandom;
+import com.fin10.ga.util.ParallelEvaluator;
+import com.fin10.ga.util.TopK;
+
+// the two-max problem on the engine, see TwoMaxFitness.
+// the best TAU of the population survives, and the rest is replaced by the winners of the tournaments
+// between the offsprings, see Engine.Scheme.TOURNAMENT_REPLACEMENT. the fitness is shared to keep both peaks.
 public final class TwoMaxProblem {
 
 	private static final int POPULATION_SIZE = 100;
 	private static final int GENERATION_COUNT = 300;
-	
-	private static final int CROSSOVER_POINTS = 1;
-	private static final float CROSSOVER_PROB = 1.f;
-	private static final float MUTATION_PROB = 0.01f;
-	private static final float TAU = 0.5f;
 
-	private final Random mRandom = new Random();
+	static final int LENGTH = 50;
+	// the radius of the fitness sharing.
+	static final float RADIUS = 30.f;
+	static final int CROSSOVER_POINTS = 1;
+	static final float CROSSOVER_PROB = 1.f;
+	static final float MUTATION_PROB = 0.01f;
+	static final float TAU = 0.5f;
 
-	public static final class Individual {
-		
-		private static final int LENGTH = 50;
-		private static final float D = 30.f;
-		
-		private final int[] values = new int[LENGTH];
-		private float fitness = 0;
-		private float rawFitness = 0;
+	private static final int THREADS = Runtime.getRuntime().availableProcessors();
 
-		private Individual() {
-		}
+	private final TwoMaxFitness mFitness = new TwoMaxFitness();
+	// the seeds of the engines are drawn from it.
+	private final FastRandom mRandom;
+	private final ParallelEvaluator mEvaluator;
 
-		// create new individual randomly
-		public static Individual createInstance(Random random) {
-			Individual individual = new Individual();
-			for (int i = 0; i < individual.values.length; ++i) {
-				individual.values[i] = random.nextInt(2);
-			}
-			
-			return individual;
-		}
-		
-		// duplicate itself
-		public Individual duplicate() {
-			Individual individual = new Individual();
-			for (int i = 0; i < values.length; ++i) {
-				individual.values[i] = values[i];
-			}
-			individual.fitness = fitness;
-						
-			return individual;
-		}
-
-		// calculate fitness with sharing method
-		public void calculateFitness(List<Individual> population) {
-			int sumOfOne = 0, sumOfZero = 0;
-			for (int value : values) {
-				if (value == 1) ++sumOfOne;
-				else if (value == 0) ++ sumOfZero;
-			}
-			
-			rawFitness = Math.max(sumOfOne, sumOfZero);
-			float m = sharingMethod(population);
-			fitness = m > 0.f ? rawFitness / m : rawFitness;
-		}
+	private MetricsListener mListener = MetricsListener.NONE;
+	private Termination mTermination = Terminations.generations(GENERATION_COUNT);
 
-		// invert special value for mutation
-		public void invert(int index) {
-			values[index] = values[index] == 1 ? 0 : 1;
-		}
-		
-		public static int size() {
-			return LENGTH;
-		}
-
-		@Override
-		public String toString() {
-			StringBuilder strBuilder = new StringBuilder();
-			strBuilder.append("'");
-			for (int value : values) {
-				strBuilder.append(value);
-			}
-			strBuilder.append("' fitness: ");
-			strBuilder.append(rawFitness);
-			strBuilder.append(" modified fitness: ");
-			strBuilder.append(fitness);
-			
-			return strBuilder.toString();
-		}
-		
-		// calculate sum of h(d)
-		private float sharingMethod(List<Individual> population) {
-			float sum = 0.f;
-			for (Individual individual : population) {
-				if (this == individual) continue;
-				
-				int distance = getHammingDistance(this.values, individual.values);
-				if (distance < D) sum += 1.f - distance/D;
-			}
-			
-			return sum;
-		}
-		
-		private static int getHammingDistance(int[] value1, int[] value2) {
-			int distance = 0;
-			for (int i = 0; i < value1.length; ++i) {
-				if (value1[i] != value2[i]) {
-					++distance;
-				}
-			}
-			
-			return distance;
-		}
+	public TwoMaxProblem() {
+		this(System.nanoTime(), 1);
 	}
-	
-	public static void main(String[] args) {
-		TwoMaxProblem s = new TwoMaxProblem();
-		
-		List<Individual> population = s.generatePopulation(POPULATION_SIZE);
-		
-		System.out.print(String.format("#%03d ", 0));
-		printSummaryOfPopulation(population);
-		
-		for (int i = 0; i < GENERATION_COUNT; ++i) {
-			List<Individual> reserved = splitPopulation(population, TAU);
-			s.doCrossover(population, CROSSOVER_PROB, CROSSOVER_POINTS);
-			s.doMutation(population, MUTATION_PROB);
 
-			population = s.doTournamentReplacement(reserved, population);
-			
-			System.out.print(String.format("#%03d ", i+1));
-			printSummaryOfPopulation(population);
-		}
-		
-		printBestOfIndividuals(population, 10);
+	// the engines are run by 'threads' threads.
+	// the result is reproducible for the same seed and the same thread count.
+	public TwoMaxProblem(long seed, int threads) {
+		mRandom = new FastRandom(seed);
+		mEvaluator = new ParallelEvaluator(threads);
 	}
 
-	// it splits population into tau ratio for overlap selection.
-	private static List<Individual> splitPopulation(List<Individual> population, float tau) {
-		Collections.sort(population, new Comparator<Individual>() {
-
-			@Override
-			public int compare(Individual o1, Individual o2) {
-				return Float.compare(o1.fitness, o2.fitness);
-			}
-		});
-		Collections.reverse(population);
-		
-		int count = (int) (population.size() * tau);
-		List<Individual> result = new ArrayList<>(count);
-		for (int i = 0; i < count; ++i) {
-			result.add(population.get(i).duplicate());
-		}
-		
-		return result;
-	}
+	// if the first argument is "steady", the steady-state mode is used instead of the generations.
+	public static void main(String[] args) {
+		TwoMaxProblem s = new TwoMaxProblem(System.nanoTime(), THREADS);
+		s.setMetricsListener(new ConsoleListener());
 
-	// it generates population with random values.
-	private List<Individual> generatePopulation(int size) {
-		List<Individual> population = new ArrayList<>(size);
-		for (int i = 0; i < size; ++i) {
-			population.add(Individual.createInstance(mRandom));
+		Engine engine = s.createEngine(POPULATION_SIZE);
+		if (args.length > 0 && args[0].equals("steady")) {
+			engine.runSteadyState(s.mTermination, Engine.Replacement.WORST);
+		} else {
+			engine.run(s.mTermination);
 		}
 
-		for (Individual individual : population) {
-			individual.calculateFitness(population);
-		}
-		
-		return population;
+		printBestOfGenomes(engine.getPopulation(), 10);
+		s.shutdown();
 	}
-	
-	// it does tournament replacement. the reserved population will survive entirely. and the 'population' will enter the tournament.
-	private List<Individual> doTournamentReplacement(List<Individual> reserved, List<Individual> population) {
-		List<Individual> individuals = new ArrayList<>(reserved);
-		int count = population.size() - reserved.size();
-		for (int i = 0; i < count; ++i) {
-			Individual individual = population.get(mRandom.nextInt(population.size()));
-			if (population.get(i).fitness < individual.fitness) {
-				individuals.add(individual.duplicate());
-			} else {
-				individuals.add(population.get(i).duplicate());
-			}
-		}
-		
-		for (Individual individual : individuals) {
-			individual.calculateFitness(individuals);
-		}
-		
-		return individuals;
+
+	public void shutdown() {
+		mEvaluator.shutdown();
 	}
-	
-	// the crossover will be occurred in the prob probability.	
-	private void doCrossover(List<Individual> population, float prob, int points) {
-		Collections.shuffle(population, mRandom);
-		
-		int size = population.size();
-		for (int i = 0; i < size/2; ++i) {
-			if (mRandom.nextFloat() <= prob) {
-				int startIdx = 1;
-				Individual mom = population.get(i);
-				Individual papa = population.get(i + size/2);
-				if (mom.equals(papa)) continue;
 
-				while (points > 0) {
-					// calculates points to split individual.
-					startIdx += mRandom.nextInt(Individual.size() - startIdx - points);
-					for (int j = startIdx; j < Individual.size(); ++j) {
-						int tmp = mom.values[j];
-						mom.values[j] = papa.values[j];
-						papa.values[j] = tmp;
-					}
-					
-					--points;
-				}
-			}
-		}
-		
-		for (Individual individual : population) {
-			individual.calculateFitness(population);
-		}
+	// the listener of the engines which are created after this.
+	public void setMetricsListener(MetricsListener listener) {
+		mListener = listener;
 	}
 
-	// the mutation will be occurred in the prob probability.
-	private void doMutation(List<Individual> population, float prob) {
-		for (Individual individual : population) {
-			for (int i = 0; i < Individual.size(); ++i) {
-				if (mRandom.nextFloat() <= prob) {
-					// inverts value.
-					individual.invert(i);
-				}
-			}
-		}
-		
-		for (Individual individual : population) {
-			individual.calculateFitness(population);
-		}
+	// the policy which stops the runs of main(). it is GENERATION_COUNT generations by default.
+	public void setTermination(Termination termination) {
+		mTermination = termination;
 	}
 
-	private static void printSummaryOfPopulation(List<Individual> population) {
-		float avg = 0.f;
-		float best = 0;
-		
-		for (Individual individual : population) {
-			if (best < individual.rawFitness) best = individual.rawFitness;
-			avg += individual.rawFitness;
-		}
-		
-		avg /= population.size();
-		
-		System.out.println(String.format("avg: %.2f, best: %.2f", avg, best));
+	// it creates the engine of the problem with the settings.
+	public Engine createEngine(int size) {
+		Engine engine = new Engine(mFitness, LENGTH, size, mRandom.nextLong(), mEvaluator);
+		engine.setScheme(Engine.Scheme.TOURNAMENT_REPLACEMENT);
+		engine.setElites((int) (size * TAU));
+		engine.setSelector(new TournamentSelector(2));
+		engine.setCrossover(new PointCrossover<>(Genome.GENES, CROSSOVER_POINTS), CROSSOVER_PROB);
+		engine.setMutator(new BitFlipMutator<>(Genome.GENES, MUTATION_PROB));
+		engine.setFitnessSharing(new FitnessSharing(RADIUS));
+		engine.setMetricsListener(mListener);
+
+		return engine;
 	}
-	
-	private static void printBestOfIndividuals(List<Individual> population, int count) {
-		Collections.sort(population, new Comparator<Individual>() {
 
-			@Override
-			public int compare(Individual o1, Individual o2) {
-				return Float.compare(o1.rawFitness, o2.rawFitness);
-			}
-		});
-		Collections.reverse(population);
+	private static void printBestOfGenomes(List<Genome> population, int count) {
+		int size = population.size();
+		count = Math.min(count, size);
+		float[] keys = new float[size];
+		int[] indices = new int[size];
+		for (int i = 0; i < size; ++i) {
+			keys[i] = (float) population.get(i).getRawFitness();
+		}
 
-		List<Individual> result = population.subList(0, count);
-		for (int i = 0; i < result.size() && i < count; ++i) {
-			System.out.println(String.format("#%03d %s", i+1, result.get(i)));
+		TopK.fill(indices, size);
+		TopK.select(keys, indices, size, count);
+		TopK.sort(keys, indices, count);
+		for (int i = 0; i < count; ++i) {
+			Genome genome = population.get(indices[i]);
+			System.out.println(String.format("#%03d '%s' fitness: %.1f modified fitness: %.3f", i+1, genome,
+					genome.getRawFitness(), genome.getFitness()));
 		}
 	}
 }
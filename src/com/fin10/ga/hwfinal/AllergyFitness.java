@@ -0,0 +1,48 @@
+package com.fin10.ga.hwfinal;
+
+import java.util.Arrays;
+
+import com.fin10.ga.engine.FitnessFunction;
+import com.fin10.ga.engine.Genome;
+
+// the allergy problem as a fitness function of the engine.
+// the gene i is whether the food i is served. the engine maximizes the fitness, so the fitness is the negative number of
+// the foods, or -(foods+1) if someone can't eat any of them.
+public final class AllergyFitness implements FitnessFunction {
+
+	private final CoverageIndex mIndex;
+
+	// the scratch table of the covered people for each evaluating thread.
+	private final ThreadLocal<long[]> mTables = new ThreadLocal<long[]>() {
+
+		@Override
+		protected long[] initialValue() {
+			return mIndex.newTable();
+		}
+	};
+
+	AllergyFitness(CoverageIndex index) {
+		mIndex = index;
+	}
+
+	// the foods are added to the table until everyone is covered, and the rest foods are only counted.
+	@Override
+	public double evaluate(Genome genome) {
+		long[] table = mTables.get();
+		Arrays.fill(table, 0);
+
+		int count = 0;
+		boolean covered = false;
+		for (int i = 0; i < genome.words(); ++i) {
+			long word = genome.word(i);
+			count += Long.bitCount(word);
+			while (!covered && word != 0) {
+				mIndex.cover((i << 6) + Long.numberOfTrailingZeros(word), table);
+				covered = mIndex.isCovered(table);
+				word &= word - 1;
+			}
+		}
+
+		return count > 0 && covered ? -count : -(genome.length() + 1);
+	}
+}
@@ -1,89 +1,89 @@
 package com.fin10.ga.hwfinal;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import java.util.Scanner;
 
+import com.fin10.ga.engine.BitFlipMutator;
+import com.fin10.ga.engine.Engine;
+import com.fin10.ga.engine.Genome;
+import com.fin10.ga.engine.IslandModel;
+import com.fin10.ga.engine.PointCrossover;
+import com.fin10.ga.engine.Repair;
+import com.fin10.ga.engine.Seeder;
+import com.fin10.ga.engine.TournamentSelector;
+import com.fin10.ga.metrics.ConsoleListener;
+import com.fin10.ga.metrics.MetricsListener;
+import com.fin10.ga.termination.Termination;
+import com.fin10.ga.termination.Terminations;
+import com.fin10.ga.util.FastRandom;
+import com.fin10.ga.util.FitnessCache;
+import com.fin10.ga.util.ParallelEvaluator;
+import com.fin10.ga.util.Tokenizer;
+
+// the allergy problem on the engine, see AllergyFitness. the fitness is the negative number of the served foods,
+// so the engine maximizes it, and the solution is the negated best.
 public final class AllergyProblem {
 
-	private static final int POPULATION_SIZE = 500;
+	// how the initial population is generated.
+	public enum Seeding {
+		// each gene is true in 50% probability.
+		RANDOM,
+		// the first genome is the greedy set cover, and the rest are random genomes which are repaired.
+		GREEDY
+	}
+	
+	static final int POPULATION_SIZE = 500;
 	private static final int GENERATION_SIZE = 75;
+	private static final int STALL_GENERATIONS = 15;
 	
-	private static final int CROSSOVER_POINTS = 1;
-	private static final float CROSSOVER_PROB = 1.f;
-	private static final float MUTATION_PROB = 0.2f;
-	private static final float TAU = 0.5f;
+	static final int CROSSOVER_POINTS = 1;
+	static final float CROSSOVER_PROB = 1.f;
+	static final float MUTATION_PROB = 0.2f;
+	static final float TAU = 0.5f;
+	// the probability of the local search of each repaired genome in the memetic mode.
+	static final float LOCAL_SEARCH_PROB = 0.1f;
 	
-	private final Random mRandom = new Random();
+	private static final int THREADS = Runtime.getRuntime().availableProcessors();
+	private static final int ISLAND_DEFAULT = 1;
+	private static final int CHECKPOINT_INTERVAL = 5;
+	
+	// GENERATION_SIZE generations, or until the population converges, whose diversity is 2 * (1 - convergence),
+	// so it is the convergence 0.55. no solution can have less than one food, so it stops if one food is found.
+	static final Termination DEFAULT_TERMINATION = Terminations.anyOf(Terminations.generations(GENERATION_SIZE),
+			Terminations.diversityFloor(0.9), Terminations.target(-1));
+	// the greedy seeding starts from the similar covers, so the population is below the diversity floor from the start.
+	// it stops if the best is not improved for STALL_GENERATIONS generations instead.
+	static final Termination SEEDED_TERMINATION = Terminations.anyOf(Terminations.generations(GENERATION_SIZE),
+			Terminations.stall(STALL_GENERATIONS), Terminations.target(-1));
+	
+	// the seeds of the engines are drawn from it.
+	private final FastRandom mRandom;
+	private final ParallelEvaluator mEvaluator;
 	private final List<Person> people;
+	private final Map<String, Person> peopleByName;
 	private final int foods;
+	// it is built when the solution is started, after all foods of the people are set.
+	private CoverageIndex index;
 	
-	public static final class Individual {
-		
-		private boolean[] values;
-		private int fitness = 0;
-		
-		private Individual(int length) {
-			values = new boolean[length];
-		}
-		
-		public static Individual createInstance(Random random, int length) {
-			Individual individual = new Individual(length);
-			for (int i = 0; i < length; ++i) {
-				individual.values[i] = random.nextBoolean();
-			}
-			
-			return individual;
-		}
+	private MetricsListener mListener = MetricsListener.NONE;
+	// the fitness of the evaluated genomes. it is shared by the islands and it is not used if null.
+	private FitnessCache mCache = null;
+	// it is null until it is set, and then the default of the seeding is used, see getTermination().
+	private Termination mTermination = null;
 	
-		public void calculateFitness(List<Person> people) {
-			int count = 0;
-			boolean[] checkTable = new boolean[people.size()];
-			Arrays.fill(checkTable, false);
-
-			for (int i = 0; i < values.length; ++i) {
-				if (values[i]) {
-					++count;
-					for (int j = 0 ; j < people.size(); ++j) {
-						if (!checkTable[j] && people.get(j).availableFoods[i]) {
-							checkTable[j] = true;
-						}
-					}
-				}
-			}
-
-			if (count == 0) {
-				fitness = values.length+1;
-				return;
-			}
-			
-			for (boolean check : checkTable) {
-				if (!check) {
-					fitness = values.length+1;
-					return;
-				}
-			}
-			
-			fitness = count;
-		}
-		
-		public Individual duplicate() {
-			Individual individual = new Individual(values.length);
-			for (int i = 0; i < values.length; ++i) {
-				individual.values[i] = values[i];
-			}
-			individual.fitness = fitness;
-						
-			return individual;
-		}
-	}
+	private Seeding mSeeding = Seeding.RANDOM;
+	// the genomes which are changed by the crossover or the mutation are repaired if it is true.
+	private boolean mRepairing = false;
+	// the probability of the local search of each repaired genome. there is no local search if it is 0.
+	private float mLocalSearch = 0;
+	
+	// the repair and the local search for each thread. it is created again if the index is built again.
+	private final ThreadLocal<SetCover> mCovers = new ThreadLocal<>();
 	
 	public static final class Person {
 		
@@ -99,6 +99,10 @@ public final class AllergyProblem {
 		public void setFood(int index, boolean possible) {
 			this.availableFoods[index] = possible;
 		}
+		
+		public boolean canEat(int index) {
+			return this.availableFoods[index];
+		}
 
 		@Override
 		public String toString() {
@@ -106,221 +110,216 @@ public final class AllergyProblem {
 		}
 	}
 
-	private AllergyProblem(String[] names, int foods) {
+	// the engines are run by the evaluator, and the islands by their own threads.
+	// the result is reproducible for the same seed and the same thread count.
+	AllergyProblem(String[] names, int foods, long seed, ParallelEvaluator evaluator) {
+		this.mRandom = new FastRandom(seed);
+		this.mEvaluator = evaluator;
 		this.foods = foods;
 		this.people = new ArrayList<>(names.length);
+		this.peopleByName = new HashMap<>(names.length * 2);
 		for (String name : names) {
-			this.people.add(new Person(name, foods));
+			Person person = new Person(name, foods);
+			this.people.add(person);
+			this.peopleByName.put(name, person);
 		}
 	}
 	
-	private Person getPerson(String name) {
-		for (Person p : people) {
-			if (p.name.equals(name)) {
-				return p;
-			}
-		}
-		
-		return null;
+	// the listener receives the metrics of every generation. it is shared by the islands, so it must be thread-safe.
+	public void setMetricsListener(MetricsListener listener) {
+		mListener = listener;
 	}
 	
-	private int getSolution() {
-		List<Individual> population = generatePopulation(POPULATION_SIZE);
-		
-		int best = foods;
-		for (int i = 0; i < GENERATION_SIZE; ++i) {
-			List<Individual> reserved = splitPopulation(population, TAU);
-			doCrossover(population, CROSSOVER_PROB, CROSSOVER_POINTS);
-			doMutation(population, MUTATION_PROB);
-
-			population = doTournamentReplacement(reserved, population);
-			
-			for (Individual individual : population) {
-				individual.calculateFitness(people);
-			}
-			
-			System.out.print("#" + i + " ");
-			printEvaluation(population);
-			
-			for (Individual individual : population) {
-				if (best > individual.fitness) best = individual.fitness;
-			}
-			
-			if (checkConvergence(population) > 0.55f) {
-				break;
-			}
-		}
-		
-		return best;
+	// the policy which stops getSolution(). see getTermination().
+	public void setTermination(Termination termination) {
+		mTermination = termination;
 	}
-
-	public float checkConvergence(List<Individual> population) {
-		int length = population.get(0).values.length;
-		float half = population.size()/2.f;
-
-		float total = 0;
-		for (int i = 0; i < length; ++i) {
-			int count = 0;
-			for (Individual individual : population) {
-				if (individual.values[i]) ++count;
-			}
-			
-			if (count < half) count = population.size() - count;
-			total += count;
-		}
+	
+	// the policy which is set, or DEFAULT_TERMINATION for the random seeding and SEEDED_TERMINATION for the greedy one.
+	Termination getTermination() {
+		if (mTermination != null) return mTermination;
 		
-		return (total / population.size()) / length;
+		return mSeeding == Seeding.GREEDY ? SEEDED_TERMINATION : DEFAULT_TERMINATION;
 	}
 	
-	public void printEvaluation(List<Individual> population) {
-		int best = Integer.MAX_VALUE;
-		long total = 0;
-		for (Individual individual : population) {
-			total += individual.fitness;
-			if (best > individual.fitness) best = individual.fitness;
-		}
-		
-		System.out.println("avg:" + (float) total / population.size() + ", best:" + best +
-				", convergence:" + checkConvergence(population));
+	// the fitness of a genome is looked up in the cache before it is calculated.
+	public void setFitnessCache(FitnessCache cache) {
+		mCache = cache;
 	}
 	
+	// the seeding of the engines which are created after this. it is RANDOM by default.
+	public void setSeeding(Seeding seeding) {
+		mSeeding = seeding;
+	}
 	
-	public List<Individual> generatePopulation(int size) {
-		List<Individual> population = new ArrayList<>(size);
-		for (int i = 0; i < size; ++i) {
-			population.add(Individual.createInstance(mRandom, foods));
-		}
-		
-		for (Individual individual : population) {
-			individual.calculateFitness(people);
-		}
-		
-		return population;
+	// if it is true, each genome which is changed by the crossover or the mutation is repaired, see SetCover.
+	// so every genome serves everyone, unless someone can't eat any food. it is false by default.
+	public void setRepairing(boolean repairing) {
+		mRepairing = repairing;
 	}
-
-	private static List<Individual> splitPopulation(List<Individual> population, float tau) {
-		Collections.sort(population, new Comparator<Individual>() {
-
-			@Override
-			public int compare(Individual o1, Individual o2) {
-				return Float.compare(o1.fitness, o2.fitness);
-			}
-		});
-		Collections.reverse(population);
-		
-		int count = (int) (population.size() * tau);
-		List<Individual> result = new ArrayList<>(count);
-		for (int i = 0; i < count; ++i) {
-			result.add(population.get(i).duplicate());
+	
+	// the probability of the local search of each repaired genome, which makes the algorithm memetic.
+	// it is used only if the genomes are repaired. it is 0 by default.
+	public void setLocalSearch(float prob) {
+		mLocalSearch = prob;
+	}
+	
+	// the greedy seeding, the repair and the local search of LOCAL_SEARCH_PROB.
+	public void setMemetic() {
+		setSeeding(Seeding.GREEDY);
+		setRepairing(true);
+		setLocalSearch(LOCAL_SEARCH_PROB);
+	}
+	
+	Person getPerson(String name) {
+		return peopleByName.get(name);
+	}
+	
+	// it must be called after all foods of the people are set.
+	void buildIndex() {
+		index = new CoverageIndex(people, foods);
+	}
+	
+	CoverageIndex getIndex() {
+		return index;
+	}
+	
+	int getSolution() {
+		buildIndex();
+		return toSolution(createEngine(POPULATION_SIZE, mRandom.nextLong(), mEvaluator).run(getTermination()));
+	}
+	
+	// it resumes from the checkpoint file if it exists, and writes it every CHECKPOINT_INTERVAL generations.
+	int getSolution(String checkpoint) throws IOException {
+		buildIndex();
+		Engine engine = createEngine(POPULATION_SIZE, mRandom.nextLong(), mEvaluator);
+		return toSolution(engine.run(getTermination(), checkpoint, CHECKPOINT_INTERVAL));
+	}
+	
+	// it solves the problem with the island model instead of the single population.
+	// the population is divided evenly into the islands, and each island is evaluated by its own thread only.
+	private int getSolution(int islands) {
+		buildIndex();
+		int size = Math.max(2, POPULATION_SIZE / islands);
+		Engine[] engines = new Engine[islands];
+		for (int i = 0; i < islands; ++i) {
+			engines[i] = createEngine(size, mRandom.nextLong(), new ParallelEvaluator(1));
 		}
 		
-		return result;
+		return toSolution(new IslandModel(engines, mRandom.nextLong()).run(getTermination()));
 	}
 	
-	public List<Individual> doTournamentReplacement(List<Individual> reserved, List<Individual> population) {
-		List<Individual> individuals = new ArrayList<>(reserved);
-		int count = population.size() - reserved.size();
-		for (int i = 0; i < count; ++i) {
-			Individual individual = population.get(mRandom.nextInt(population.size()));
-			if (population.get(i).fitness < individual.fitness) {
-				individuals.add(individual.duplicate());
-			} else {
-				individuals.add(population.get(i).duplicate());
-			}
+	// all foods are always enough, even if someone can't eat any food.
+	private int toSolution(double best) {
+		return Math.min(foods, (int) -best);
+	}
+	
+	// it creates the engine with the settings. the index must be built.
+	// the best TAU of the population survives, and the rest are the winners of the offsprings and random opponents.
+	Engine createEngine(int size, long seed, ParallelEvaluator evaluator) {
+		Engine engine = new Engine(new AllergyFitness(index), foods, size, seed, evaluator);
+		engine.setScheme(Engine.Scheme.TOURNAMENT_REPLACEMENT);
+		engine.setElites((int) (size * TAU));
+		engine.setSelector(new TournamentSelector(2));
+		engine.setCrossover(new PointCrossover<>(Genome.GENES, CROSSOVER_POINTS), CROSSOVER_PROB);
+		engine.setMutator(new BitFlipMutator<>(Genome.GENES, MUTATION_PROB));
+		engine.setMetricsListener(mListener);
+		engine.setFitnessCache(mCache);
+		if (mRepairing) {
+			final float localSearch = mLocalSearch;
+			engine.setRepair(new Repair() {
+				
+				// the genome is searched in the probability after it is repaired.
+				@Override
+				public int repair(Genome genome, Random random) {
+					SetCover cover = getSetCover();
+					long before = cover.getEvaluations();
+					int fitness = cover.repair(genome, random);
+					if (localSearch > 0 && random.nextFloat() < localSearch) {
+						fitness = cover.improve(genome, fitness, random);
+					}
+					genome.setRawFitness(-fitness);
+					return (int) (cover.getEvaluations() - before);
+				}
+			});
+		}
+		if (mSeeding == Seeding.GREEDY) {
+			engine.setSeeder(new Seeder() {
+				
+				// the first genome is repaired from no food, which is the greedy set cover.
+				@Override
+				public int seed(int index, Genome genome, Random random) {
+					if (index == 0) genome.clear();
+					SetCover cover = getSetCover();
+					long before = cover.getEvaluations();
+					genome.setRawFitness(-cover.repair(genome, random));
+					return (int) (cover.getEvaluations() - before);
+				}
+			});
 		}
 		
-		return individuals;
+		return engine;
 	}
 	
-	public List<Individual> doTournamentSelection(List<Individual> population) {
-		int size = population.size();
-		List<Individual> offsprings = new ArrayList<>(size);
-		for (int i = 0; i < size; ++i) {
-			Individual opponent = population.get(mRandom.nextInt(size));
-			if (population.get(i).fitness > opponent.fitness) {
-				offsprings.add(opponent.duplicate());
-			} else {
-				offsprings.add(population.get(i).duplicate());
-			}
+	// the repair and the local search of the calling thread, for the current index.
+	private SetCover getSetCover() {
+		SetCover cover = mCovers.get();
+		if (cover == null || cover.getIndex() != index) {
+			cover = new SetCover(index);
+			mCovers.set(cover);
 		}
 		
-		return offsprings;
+		return cover;
 	}
 	
-	public void doCrossover(List<Individual> population, float prob, int points) {
-		Collections.shuffle(population, mRandom);
+	// it reads a test case.
+	static AllergyProblem read(Tokenizer tokenizer, long seed, ParallelEvaluator evaluator) throws IOException {
+		int persons = tokenizer.nextInt();
+		int foods = tokenizer.nextInt();
 		
-		int size = population.size();
-		for (int i = 0; i < size/2; ++i) {
-			if (mRandom.nextFloat() <= prob) {
-				int startIdx = 1;
-				Individual mom = population.get(i);
-				Individual papa = population.get(i + size/2);
-
-				for (int j = 0; j < points; ++j) {
-					startIdx += mRandom.nextInt(mom.values.length - startIdx - points);
-					Individual tmp = mom.duplicate();
-					for (int k = startIdx; k < mom.values.length; ++k) {
-						mom.values[k] = papa.values[k];
-						papa.values[k] = tmp.values[k];
-					}
-				}
-			}
+		String[] names = new String[persons];
+		for (int j = 0; j < persons; ++j) {
+			names[j] = tokenizer.next();
 		}
-	}
-	
-	public void doMutation(List<Individual> population, float prob) {
-		for (Individual individual : population) {
-			for (int i = 0; i < individual.values.length; ++i) {
-				if (mRandom.nextFloat() <= prob) {
-					individual.values[i] = !individual.values[i];
-				}
+		
+		AllergyProblem problem = new AllergyProblem(names, foods, seed, evaluator);
+		for (int j = 0; j < foods; ++j) {
+			int c = tokenizer.nextInt();
+			for (int k = 0; k < c; ++k) {
+				Person person = problem.getPerson(tokenizer.next());
+				person.setFood(j, true);
 			}
 		}
+		
+		return problem;
 	}
 	
+	// the first argument is the number of islands. if it is more than 1, the island model is used.
+	// the second argument is the prefix of the checkpoint files of the cases. the island model is not checkpointed.
+	// it is ignored if it is "-".
+	// the third argument is whether the memetic mode is used, see setMemetic().
 	public static void main(String[] args) {
-		FileInputStream in = null;
-		Scanner sc = null;
+		int islands = args.length > 0 ? Integer.parseInt(args[0]) : ISLAND_DEFAULT;
+		String checkpoint = args.length > 1 && !args[1].equals("-") ? args[1] : null;
+		boolean memetic = args.length > 2 && Boolean.parseBoolean(args[2]);
+		ParallelEvaluator evaluator = new ParallelEvaluator(THREADS);
 
-		try {
-			in = new FileInputStream("hw_final.txt");
-			sc = new Scanner(in);
-//			sc = new Scanner(System.in);
-			
-			int T = sc.nextInt();
-			
-			for (int i = 0; i < T; ++i) {
-				int persons = sc.nextInt();
-				int foods = sc.nextInt();
-				
-				String[] names = new String[persons];
-				for (int j = 0; j < persons; ++j) {
-					names[j] = sc.next();
-				}
-				
-				AllergyProblem problem = new AllergyProblem(names, foods);
-				for (int j = 0; j < foods; ++j) {
-					int c = sc.nextInt();
-					for (int k = 0; k < c; ++k) {
-						Person person = problem.getPerson(sc.next());
-						person.setFood(j, true);
-					}
-				}
-				
-				int s = problem.getSolution();
+		try (CaseReader reader = new CaseReader(Tokenizer.open("hw_final.txt"), System.nanoTime(), evaluator)) {
+//		try (CaseReader reader = new CaseReader(new Tokenizer(Channels.newChannel(System.in)), System.nanoTime(), evaluator)) {
+			for (int i = 0; reader.hasNext(); ++i) {
+				AllergyProblem problem = reader.next();
+				problem.setMetricsListener(new ConsoleListener());
+				if (memetic) problem.setMemetic();
+				int s;
+				if (islands > 1) s = problem.getSolution(islands);
+				else if (checkpoint != null) s = problem.getSolution(checkpoint + "." + i);
+				else s = problem.getSolution();
 				System.out.println(s);
-				
 			}
-		} catch (FileNotFoundException e) {
+		} catch (IOException e) {
 			e.printStackTrace();
 		} finally {
-			try {
-				if (in != null) in.close();
-				if (sc != null) sc.close();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+			evaluator.shutdown();
 		}
 	}
-}
+}
\ No newline at end of file
@@ -0,0 +1,167 @@
+package com.fin10.ga.hwfinal;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.fin10.ga.termination.Terminations;
+import com.fin10.ga.util.ParallelEvaluator;
+import com.fin10.ga.util.Tokenizer;
+
+// it solves many test cases of AllergyProblem concurrently on a fixed number of threads.
+// each case is solved by one thread of the executor, and the results are returned in the input order.
+public final class BatchSolver {
+
+	private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+	public static final class Result {
+
+		private final int index;
+		private final int solution;
+		private final long nanos;
+
+		private Result(int index, int solution, long nanos) {
+			this.index = index;
+			this.solution = solution;
+			this.nanos = nanos;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public int getSolution() {
+			return solution;
+		}
+
+		// the time to solve the case in nanoseconds.
+		public long getNanos() {
+			return nanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("#%d %d (%.3f ms)", index, solution, nanos / 1e6);
+		}
+	}
+
+	private final int mThreads;
+	// the time limit of each case in milliseconds. it is not limited if 0.
+	private long mTimeLimit = 0;
+	// whether each case is solved in the memetic mode, see AllergyProblem.setMemetic().
+	private boolean mMemetic = false;
+
+	public BatchSolver(int threads) {
+		if (threads < 1) throw new IllegalArgumentException("threads must be positive: " + threads);
+
+		mThreads = threads;
+	}
+
+	// the arguments are the input file, the number of threads, the seed, the time limit of each case in milliseconds
+	// and whether the memetic mode is used.
+	public static void main(String[] args) throws IOException {
+		String fileName = args.length > 0 ? args[0] : "hw_final.txt";
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : THREADS;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+		long timeLimit = args.length > 3 ? Long.parseLong(args[3]) : 0;
+		boolean memetic = args.length > 4 && Boolean.parseBoolean(args[4]);
+
+		// the cases are solved concurrently, so each case evaluates its population on its own thread.
+		ParallelEvaluator evaluator = new ParallelEvaluator(1);
+		List<Result> results;
+		long start = System.nanoTime();
+		try (CaseReader reader = new CaseReader(Tokenizer.open(fileName), seed, evaluator)) {
+			BatchSolver solver = new BatchSolver(threads);
+			solver.setTimeLimit(timeLimit);
+			solver.setMemetic(memetic);
+			results = solver.solve(reader);
+		}
+		long elapsed = System.nanoTime() - start;
+
+		for (Result result : results) {
+			System.out.println(result);
+		}
+		System.out.println(String.format("%d cases, %d threads, %.3f ms", results.size(), threads, elapsed / 1e6));
+	}
+
+	// each case stops at the time limit, besides the default termination of AllergyProblem.
+	// the time is counted from the first generation, so the time in the queue and of the initial population is not counted.
+	public void setTimeLimit(long millis) {
+		if (millis < 0) throw new IllegalArgumentException("the time limit must not be negative: " + millis);
+
+		mTimeLimit = millis;
+	}
+
+	// each case is seeded greedily, repaired and searched locally. it is false by default.
+	public void setMemetic(boolean memetic) {
+		mMemetic = memetic;
+	}
+
+	public List<Result> solve(List<AllergyProblem> problems) {
+		return solve(problems.iterator());
+	}
+
+	// the cases are taken from the iterator only when there is room in the queue of the executor,
+	// so at most 'threads * 2' cases are in memory at once.
+	public List<Result> solve(Iterator<AllergyProblem> problems) {
+		ExecutorService executor = Executors.newFixedThreadPool(mThreads);
+		try {
+			List<Result> results = new ArrayList<>();
+			Deque<Future<Result>> pending = new ArrayDeque<>();
+			int index = 0;
+			while (problems.hasNext()) {
+				if (pending.size() >= mThreads * 2) {
+					results.add(pending.poll().get());
+				}
+
+				AllergyProblem problem = problems.next();
+				// the time limit is added to the termination of the seeding, so the seeding is set first.
+				if (mMemetic) problem.setMemetic();
+				if (mTimeLimit > 0) {
+					problem.setTermination(Terminations.anyOf(problem.getTermination(),
+							Terminations.timeLimit(mTimeLimit, TimeUnit.MILLISECONDS)));
+				}
+
+				pending.add(executor.submit(createTask(index++, problem)));
+			}
+
+			while (!pending.isEmpty()) {
+				results.add(pending.poll().get());
+			}
+
+			return results;
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new IllegalStateException(cause);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static Callable<Result> createTask(final int index, final AllergyProblem problem) {
+		return new Callable<Result>() {
+
+			@Override
+			public Result call() {
+				long start = System.nanoTime();
+				int solution = problem.getSolution();
+				return new Result(index, solution, System.nanoTime() - start);
+			}
+		};
+	}
+}
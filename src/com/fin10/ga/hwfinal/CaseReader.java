@@ -0,0 +1,52 @@
+package com.fin10.ga.hwfinal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import com.fin10.ga.util.ParallelEvaluator;
+import com.fin10.ga.util.Tokenizer;
+
+// it reads the test cases lazily one by one, so only the cases being solved are kept in memory.
+// the first token of the input is the number of the cases.
+public final class CaseReader implements Iterator<AllergyProblem>, Closeable {
+
+	private final Tokenizer mTokenizer;
+	private final ParallelEvaluator mEvaluator;
+	// the seed of each case is drawn from it in order.
+	private final Random mRandom;
+	private int mRemaining;
+
+	public CaseReader(Tokenizer tokenizer, long seed, ParallelEvaluator evaluator) throws IOException {
+		mTokenizer = tokenizer;
+		mEvaluator = evaluator;
+		mRandom = new Random(seed);
+		mRemaining = tokenizer.nextInt();
+	}
+
+	@Override
+	public boolean hasNext() {
+		return mRemaining > 0;
+	}
+
+	@Override
+	public AllergyProblem next() {
+		if (mRemaining <= 0) throw new NoSuchElementException();
+
+		try {
+			AllergyProblem problem = AllergyProblem.read(mTokenizer, mRandom.nextLong(), mEvaluator);
+			--mRemaining;
+			return problem;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		mTokenizer.close();
+	}
+}
@@ -0,0 +1,128 @@
+package com.fin10.ga.hwfinal;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.fin10.ga.hwfinal.AllergyProblem.Person;
+
+// it keeps the people who can eat each food as a bitset.
+// the people covered by a set of foods are the OR of the bitsets of the foods.
+// it also keeps the lists of the people who can eat each food and of the foods which each person can eat,
+// so a change of one food is applied only to its people, see SetCover.
+final class CoverageIndex {
+
+	private final int mPeople;
+	private final int mFoods;
+	private final int mWords;
+
+	// the bitset of the food i is stored in [i*words, (i+1)*words).
+	private final long[] mCoverage;
+	// the bitset which has all people.
+	private final long[] mAll;
+	// the people who can eat the food i are mEaters[mEatersFrom[i], mEatersFrom[i + 1]),
+	// and the foods which the person j can eat are mEdibles[mEdiblesFrom[j], mEdiblesFrom[j + 1]).
+	private final int[] mEaters;
+	private final int[] mEatersFrom;
+	private final int[] mEdibles;
+	private final int[] mEdiblesFrom;
+
+	CoverageIndex(List<Person> people, int foods) {
+		mPeople = people.size();
+		mFoods = foods;
+		mWords = (mPeople + 63) >>> 6;
+		mCoverage = new long[foods * mWords];
+		mAll = new long[mWords];
+		mEatersFrom = new int[foods + 1];
+		mEdiblesFrom = new int[mPeople + 1];
+
+		int pairs = 0;
+		for (int j = 0; j < mPeople; ++j) {
+			Person person = people.get(j);
+			mAll[j >>> 6] |= 1L << j;
+			mEdiblesFrom[j] = pairs;
+			for (int i = 0; i < foods; ++i) {
+				if (person.canEat(i)) {
+					mCoverage[i * mWords + (j >>> 6)] |= 1L << j;
+					++mEatersFrom[i + 1];
+					++pairs;
+				}
+			}
+		}
+		mEdiblesFrom[mPeople] = pairs;
+
+		mEaters = new int[pairs];
+		mEdibles = new int[pairs];
+		for (int i = 0; i < foods; ++i) {
+			mEatersFrom[i + 1] += mEatersFrom[i];
+		}
+
+		// the people are added in order, so each list is sorted.
+		int[] next = Arrays.copyOf(mEatersFrom, foods);
+		for (int j = 0; j < mPeople; ++j) {
+			Person person = people.get(j);
+			int k = mEdiblesFrom[j];
+			for (int i = 0; i < foods; ++i) {
+				if (person.canEat(i)) {
+					mEdibles[k++] = i;
+					mEaters[next[i]++] = j;
+				}
+			}
+		}
+	}
+
+	public int getPeople() {
+		return mPeople;
+	}
+
+	public int getFoods() {
+		return mFoods;
+	}
+
+	// the lists of the people of all foods. the people of the food are in [eatersFrom(food), eatersFrom(food + 1)).
+	public int[] eaters() {
+		return mEaters;
+	}
+
+	public int eatersFrom(int food) {
+		return mEatersFrom[food];
+	}
+
+	// the lists of the foods of all people. the foods of the person are in [ediblesFrom(person), ediblesFrom(person + 1)).
+	public int[] edibles() {
+		return mEdibles;
+	}
+
+	public int ediblesFrom(int person) {
+		return mEdiblesFrom[person];
+	}
+
+	// it returns a new table which can be used as a scratch buffer of the covered people.
+	public long[] newTable() {
+		return new long[mWords];
+	}
+
+	// it adds the people who can eat the food to the table.
+	public void cover(int food, long[] table) {
+		int offset = food * mWords;
+		for (int i = 0; i < mWords; ++i) {
+			table[i] |= mCoverage[offset + i];
+		}
+	}
+
+	public boolean isCovered(long[] table) {
+		for (int i = 0; i < mWords; ++i) {
+			if (table[i] != mAll[i]) return false;
+		}
+
+		return true;
+	}
+
+	public int countCovered(long[] table) {
+		int count = 0;
+		for (int i = 0; i < mWords; ++i) {
+			count += Long.bitCount(table[i]);
+		}
+
+		return count;
+	}
+}
@@ -0,0 +1,243 @@
+package com.fin10.ga.hwfinal;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.fin10.ga.engine.Genome;
+
+// the greedy repair and the local search of the served foods, on the coverage index.
+// the repair adds the food which the most uncovered people can eat until everyone is covered,
+// and then removes the redundant foods, which everyone who can eat them can eat another served food.
+// the local search drops each served food, covers its people again without it and keeps the result if it is not worse.
+//
+// it keeps the number of the served foods which each person can eat, so adding or removing a food changes only the
+// counts of its people, and the gains of the foods are counted only from the uncovered people.
+// it has the scratch buffers, so each thread needs its own instance.
+final class SetCover {
+
+	private final CoverageIndex mIndex;
+	private final int mFoods;
+	private final int mPeople;
+	private final int[] mEaters;
+	private final int[] mEdibles;
+
+	// the number of the served foods which each person can eat, the number of the people whose count is not 0,
+	// and the number of the served foods.
+	private final int[] mCounts;
+	private int mCovered = 0;
+	private int mServed = 0;
+	// the people who may be uncovered. the covered ones are dropped when the gains are counted.
+	private final int[] mUncovered;
+	private int mUncoveredSize = 0;
+	// the number of the uncovered people who can eat each food, and the foods whose gain is not 0.
+	private final int[] mGains;
+	private final int[] mCandidates;
+	// the changes of a trial of the local search, to undo it. the food f is recorded as f if it is added, ~f if removed.
+	private final int[] mChanges;
+	private int mChangeSize = 0;
+	private boolean mRecording = false;
+	// the served foods in the order of the local search.
+	private final int[] mOrder;
+	// the number of the individuals which are loaded, which is comparable to the evaluations.
+	private long mEvaluations = 0;
+
+	SetCover(CoverageIndex index) {
+		mIndex = index;
+		mFoods = index.getFoods();
+		mPeople = index.getPeople();
+		mEaters = index.eaters();
+		mEdibles = index.edibles();
+		mCounts = new int[mPeople];
+		mUncovered = new int[mPeople];
+		mGains = new int[mFoods];
+		mCandidates = new int[mFoods];
+		// each food is removed or added and then removed at most once in a trial.
+		mChanges = new int[2 * mFoods + 1];
+		mOrder = new int[mFoods];
+	}
+
+	CoverageIndex getIndex() {
+		return mIndex;
+	}
+
+	long getEvaluations() {
+		return mEvaluations;
+	}
+
+	// it repairs the genes and returns the number of the served foods, or foods+1 if someone can't eat any food,
+	// see AllergyFitness.
+	int repair(Genome genome, Random random) {
+		load(genome);
+
+		mUncoveredSize = 0;
+		for (int j = 0; j < mPeople; ++j) {
+			if (mCounts[j] == 0) mUncovered[mUncoveredSize++] = j;
+		}
+
+		int fitness = mFoods + 1;
+		if (cover(genome, -1, random)) {
+			int start = mFoods > 0 ? random.nextInt(mFoods) : 0;
+			for (int k = 0; k < mFoods; ++k) {
+				int food = (start + k) % mFoods;
+				if (genome.get(food) && isRedundant(food)) remove(genome, food);
+			}
+
+			if (mServed > 0) fitness = mServed;
+		}
+
+		return fitness;
+	}
+
+	// it drops each served food once, in a random order, and keeps the trial if it serves no more foods.
+	// the genes must be repaired. it returns the number of the served foods like repair().
+	int improve(Genome genome, int fitness, Random random) {
+		if (fitness > mFoods) return fitness;
+		load(genome);
+
+		int served = 0;
+		for (int i = 0; i < genome.words(); ++i) {
+			for (long word = genome.word(i); word != 0; word &= word - 1) {
+				mOrder[served++] = (i << 6) + Long.numberOfTrailingZeros(word);
+			}
+		}
+
+		int start = served > 0 ? random.nextInt(served) : 0;
+		mRecording = true;
+		for (int k = 0; k < served; ++k) {
+			int food = mOrder[(start + k) % served];
+			if (!genome.get(food)) continue;
+
+			mChangeSize = 0;
+			remove(genome, food);
+			mUncoveredSize = 0;
+			for (int e = mIndex.eatersFrom(food); e < mIndex.eatersFrom(food + 1); ++e) {
+				if (mCounts[mEaters[e]] == 0) mUncovered[mUncoveredSize++] = mEaters[e];
+			}
+
+			if (cover(genome, food, random)) removeRedundantAroundAdded(genome);
+			if (mCovered == mPeople && mServed <= fitness) {
+				fitness = mServed;
+			} else {
+				undo(genome);
+			}
+		}
+		mRecording = false;
+
+		return fitness;
+	}
+
+	// it counts the people of the served foods from zero.
+	private void load(Genome genome) {
+		++mEvaluations;
+		Arrays.fill(mCounts, 0);
+		mCovered = 0;
+		mServed = 0;
+		for (int i = 0; i < genome.words(); ++i) {
+			for (long word = genome.word(i); word != 0; word &= word - 1) {
+				count((i << 6) + Long.numberOfTrailingZeros(word));
+			}
+		}
+	}
+
+	// it adds the food which the most uncovered people can eat until everyone is covered, and the ties are broken
+	// uniformly by the reservoir sampling. the excluded food is never added, and it is -1 if every food can be added.
+	// it returns false if someone can't eat any food which can be added.
+	private boolean cover(Genome genome, int excluded, Random random) {
+		while (mCovered < mPeople) {
+			int candidates = 0;
+			int size = 0;
+			for (int k = 0; k < mUncoveredSize; ++k) {
+				int person = mUncovered[k];
+				if (mCounts[person] != 0) continue;
+
+				mUncovered[size++] = person;
+				for (int e = mIndex.ediblesFrom(person); e < mIndex.ediblesFrom(person + 1); ++e) {
+					int food = mEdibles[e];
+					if (genome.get(food) || food == excluded) continue;
+					if (mGains[food]++ == 0) mCandidates[candidates++] = food;
+				}
+			}
+			mUncoveredSize = size;
+
+			int best = -1;
+			int bestGain = 0;
+			int ties = 0;
+			for (int k = 0; k < candidates; ++k) {
+				int food = mCandidates[k];
+				int gain = mGains[food];
+				mGains[food] = 0;
+				if (gain > bestGain) {
+					best = food;
+					bestGain = gain;
+					ties = 1;
+				} else if (gain == bestGain && random.nextInt(++ties) == 0) {
+					best = food;
+				}
+			}
+
+			if (best < 0) return false;
+			add(genome, best);
+		}
+
+		return true;
+	}
+
+	// only the foods which share people with the added foods can become redundant by them.
+	private void removeRedundantAroundAdded(Genome genome) {
+		int changes = mChangeSize;
+		for (int c = 0; c < changes; ++c) {
+			int added = mChanges[c];
+			if (added < 0) continue;
+
+			for (int e = mIndex.eatersFrom(added); e < mIndex.eatersFrom(added + 1); ++e) {
+				int person = mEaters[e];
+				for (int d = mIndex.ediblesFrom(person); d < mIndex.ediblesFrom(person + 1); ++d) {
+					int food = mEdibles[d];
+					if (genome.get(food) && isRedundant(food)) remove(genome, food);
+				}
+			}
+		}
+	}
+
+	private boolean isRedundant(int food) {
+		for (int e = mIndex.eatersFrom(food); e < mIndex.eatersFrom(food + 1); ++e) {
+			if (mCounts[mEaters[e]] < 2) return false;
+		}
+
+		return true;
+	}
+
+	private void add(Genome genome, int food) {
+		genome.set(food, true);
+		count(food);
+		if (mRecording) mChanges[mChangeSize++] = food;
+	}
+
+	// it counts the people of the served food.
+	private void count(int food) {
+		++mServed;
+		for (int e = mIndex.eatersFrom(food); e < mIndex.eatersFrom(food + 1); ++e) {
+			if (mCounts[mEaters[e]]++ == 0) ++mCovered;
+		}
+	}
+
+	private void remove(Genome genome, int food) {
+		genome.set(food, false);
+		--mServed;
+		for (int e = mIndex.eatersFrom(food); e < mIndex.eatersFrom(food + 1); ++e) {
+			if (--mCounts[mEaters[e]] == 0) --mCovered;
+		}
+		if (mRecording) mChanges[mChangeSize++] = ~food;
+	}
+
+	// it undoes the changes of the trial in the reverse order.
+	private void undo(Genome genome) {
+		mRecording = false;
+		for (int c = mChangeSize - 1; c >= 0; --c) {
+			int change = mChanges[c];
+			if (change >= 0) remove(genome, change);
+			else add(genome, ~change);
+		}
+		mRecording = true;
+	}
+}
@@ -0,0 +1,39 @@
+package com.fin10.ga.metrics;
+
+import java.io.PrintStream;
+
+import com.fin10.ga.metrics.GenerationMetrics.Phase;
+
+// it prints the metrics of every generation in a line.
+public final class ConsoleListener implements MetricsListener {
+
+	private final PrintStream mOut;
+	private final boolean mTimes;
+
+	public ConsoleListener() {
+		this(System.out, false);
+	}
+
+	// the time of each phase is printed too if times is true.
+	public ConsoleListener(PrintStream out, boolean times) {
+		mOut = out;
+		mTimes = times;
+	}
+
+	@Override
+	public void onGeneration(GenerationMetrics metrics) {
+		StringBuilder strBuilder = new StringBuilder();
+		strBuilder.append(String.format("#%03d avg: %.2f, best: %.2f, diversity: %.3f", metrics.getGeneration(),
+				metrics.getAverage(), metrics.getBest(), metrics.getDiversity()));
+
+		if (mTimes) {
+			strBuilder.append(String.format(", evaluations: %d", metrics.getEvaluations()));
+			for (Phase phase : Phase.values()) {
+				strBuilder.append(String.format(", %s: %.3f ms", phase.name().toLowerCase(), metrics.getNanos(phase) / 1e6));
+			}
+		}
+
+		// the line is printed at once, so the lines of the islands are not mixed.
+		mOut.println(strBuilder.toString());
+	}
+}
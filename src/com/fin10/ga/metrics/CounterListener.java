@@ -0,0 +1,59 @@
+package com.fin10.ga.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fin10.ga.metrics.GenerationMetrics.Phase;
+
+// it sums up the metrics of all generations with the striped counters, so it is cheap even when it is shared by threads.
+public final class CounterListener implements MetricsListener {
+
+	private final LongAdder mGenerations = new LongAdder();
+	private final LongAdder mEvaluations = new LongAdder();
+	private final LongAdder[] mNanos = new LongAdder[Phase.values().length];
+
+	public CounterListener() {
+		for (int i = 0; i < mNanos.length; ++i) {
+			mNanos[i] = new LongAdder();
+		}
+	}
+
+	@Override
+	public void onGeneration(GenerationMetrics metrics) {
+		mGenerations.increment();
+		mEvaluations.add(metrics.getEvaluations());
+		for (Phase phase : Phase.values()) {
+			mNanos[phase.ordinal()].add(metrics.getNanos(phase));
+		}
+	}
+
+	public long getGenerations() {
+		return mGenerations.sum();
+	}
+
+	public long getEvaluations() {
+		return mEvaluations.sum();
+	}
+
+	public long getNanos(Phase phase) {
+		return mNanos[phase.ordinal()].sum();
+	}
+
+	public void reset() {
+		mGenerations.reset();
+		mEvaluations.reset();
+		for (LongAdder nanos : mNanos) {
+			nanos.reset();
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder strBuilder = new StringBuilder();
+		strBuilder.append(String.format("generations: %d, evaluations: %d", getGenerations(), getEvaluations()));
+		for (Phase phase : Phase.values()) {
+			strBuilder.append(String.format(", %s: %.3f ms", phase.name().toLowerCase(), getNanos(phase) / 1e6));
+		}
+
+		return strBuilder.toString();
+	}
+}
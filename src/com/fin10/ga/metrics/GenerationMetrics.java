@@ -0,0 +1,78 @@
+package com.fin10.ga.metrics;
+
+import java.util.Arrays;
+
+// the metrics of one generation. the fitness is the raw fitness of each problem, so the best may be the lowest.
+public final class GenerationMetrics {
+
+	public enum Phase {
+		SELECTION,
+		CROSSOVER,
+		MUTATION,
+		EVALUATION
+	}
+
+	private int generation = 0;
+	private double best = 0;
+	private double average = 0;
+	private double diversity = 0;
+	private final long[] nanos = new long[Phase.values().length];
+	private long evaluations = 0;
+
+	GenerationMetrics() {
+	}
+
+	// the initial population is the generation 0.
+	public int getGeneration() {
+		return generation;
+	}
+
+	public double getBest() {
+		return best;
+	}
+
+	public double getAverage() {
+		return average;
+	}
+
+	// 0 if all individuals have the same genes, 1 if each gene is 1 in the half of the population.
+	public double getDiversity() {
+		return diversity;
+	}
+
+	// the time spent in the phase since the last generation.
+	public long getNanos(Phase phase) {
+		return nanos[phase.ordinal()];
+	}
+
+	// the number of the individuals whose fitness is calculated from scratch since the last generation.
+	public long getEvaluations() {
+		return evaluations;
+	}
+
+	void addNanos(Phase phase, long value) {
+		nanos[phase.ordinal()] += value;
+	}
+
+	void addEvaluations(long count) {
+		evaluations += count;
+	}
+
+	void set(int generation, double best, double average, double diversity) {
+		this.generation = generation;
+		this.best = best;
+		this.average = average;
+		this.diversity = diversity;
+	}
+
+	void clear() {
+		Arrays.fill(nanos, 0);
+		evaluations = 0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("#%d avg: %.2f, best: %.2f, diversity: %.3f, evaluations: %d", generation, average, best,
+				diversity, evaluations);
+	}
+}
@@ -0,0 +1,79 @@
+package com.fin10.ga.metrics;
+
+import com.fin10.ga.metrics.GenerationMetrics.Phase;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// it commits a flight recorder event for every generation. if the event is not enabled by the recording, it costs nothing.
+// e.g. java -XX:StartFlightRecording:filename=ga.jfr ...
+public final class JfrListener implements MetricsListener {
+
+	@Name("com.fin10.ga.Generation")
+	@Label("Generation")
+	@Category("Genetic Algorithm")
+	static final class GenerationEvent extends Event {
+
+		@Label("Problem")
+		String problem;
+
+		@Label("Generation")
+		int generation;
+
+		@Label("Best")
+		double best;
+
+		@Label("Average")
+		double average;
+
+		@Label("Diversity")
+		double diversity;
+
+		@Label("Evaluations")
+		long evaluations;
+
+		@Label("Selection")
+		@Timespan(Timespan.NANOSECONDS)
+		long selection;
+
+		@Label("Crossover")
+		@Timespan(Timespan.NANOSECONDS)
+		long crossover;
+
+		@Label("Mutation")
+		@Timespan(Timespan.NANOSECONDS)
+		long mutation;
+
+		@Label("Evaluation")
+		@Timespan(Timespan.NANOSECONDS)
+		long evaluation;
+	}
+
+	private final String mProblem;
+
+	// the name of the problem is recorded with the events.
+	public JfrListener(String problem) {
+		mProblem = problem;
+	}
+
+	@Override
+	public void onGeneration(GenerationMetrics metrics) {
+		GenerationEvent event = new GenerationEvent();
+		if (!event.isEnabled()) return;
+
+		event.problem = mProblem;
+		event.generation = metrics.getGeneration();
+		event.best = metrics.getBest();
+		event.average = metrics.getAverage();
+		event.diversity = metrics.getDiversity();
+		event.evaluations = metrics.getEvaluations();
+		event.selection = metrics.getNanos(Phase.SELECTION);
+		event.crossover = metrics.getNanos(Phase.CROSSOVER);
+		event.mutation = metrics.getNanos(Phase.MUTATION);
+		event.evaluation = metrics.getNanos(Phase.EVALUATION);
+		event.commit();
+	}
+}
@@ -0,0 +1,17 @@
+package com.fin10.ga.metrics;
+
+// it receives the metrics at the end of every generation.
+// the metrics object is reused for the next generation, so it must not be kept after the call.
+// a listener which is shared by several problems, like the islands, is called from several threads at once.
+public interface MetricsListener {
+
+	// it does nothing, so the problems don't even measure the metrics.
+	MetricsListener NONE = new MetricsListener() {
+
+		@Override
+		public void onGeneration(GenerationMetrics metrics) {
+		}
+	};
+
+	void onGeneration(GenerationMetrics metrics);
+}
@@ -0,0 +1,80 @@
+package com.fin10.ga.metrics;
+
+import com.fin10.ga.metrics.GenerationMetrics.Phase;
+
+// it accumulates the metrics of the current generation of a problem and passes them to the listener.
+// it is used by the thread which runs the generations, so it is not thread-safe.
+// if the listener is NONE, nothing is measured and the problem should skip the statistics, see isEnabled().
+public final class MetricsRecorder {
+
+	private final MetricsListener mListener;
+	private final boolean mEnabled;
+	private final GenerationMetrics mMetrics = new GenerationMetrics();
+	private int mGeneration = 0;
+	// the evaluations of the run. they are counted even if the listener is NONE, for the termination.
+	private long mTotalEvaluations = 0;
+
+	public MetricsRecorder(MetricsListener listener) {
+		mListener = listener;
+		mEnabled = listener != MetricsListener.NONE;
+	}
+
+	public MetricsListener getListener() {
+		return mListener;
+	}
+
+	public boolean isEnabled() {
+		return mEnabled;
+	}
+
+	// it starts the generations and the evaluations again from 0, when a new population is generated.
+	public void reset() {
+		reset(0, 0);
+	}
+
+	// it continues the generations and the evaluations from the given ones, when a run is resumed.
+	public void reset(int generation, long evaluations) {
+		mGeneration = generation;
+		mTotalEvaluations = evaluations;
+		mMetrics.clear();
+	}
+
+	// it returns the start time for end().
+	public long begin() {
+		return mEnabled ? System.nanoTime() : 0;
+	}
+
+	public void end(Phase phase, long start) {
+		if (mEnabled) mMetrics.addNanos(phase, System.nanoTime() - start);
+	}
+
+	public void addEvaluations(int count) {
+		mMetrics.addEvaluations(count);
+		mTotalEvaluations += count;
+	}
+
+	public long getTotalEvaluations() {
+		return mTotalEvaluations;
+	}
+
+	// it passes the metrics of the current generation to the listener and starts the next generation.
+	public void endGeneration(double best, double average, double diversity) {
+		if (!mEnabled) return;
+
+		mMetrics.set(mGeneration++, best, average, diversity);
+		mListener.onGeneration(mMetrics);
+		mMetrics.clear();
+	}
+
+	// ones[i] is the number of the individuals whose gene i is 1.
+	public static double getDiversity(int[] ones, int length, int size) {
+		if (length == 0 || size == 0) return 0;
+
+		double total = 0;
+		for (int i = 0; i < length; ++i) {
+			total += Math.min(ones[i], size - ones[i]);
+		}
+
+		return 2 * total / ((double) length * size);
+	}
+}
@@ -0,0 +1,111 @@
+package com.fin10.ga.termination;
+
+// the progress of a run, which is updated by the solver after every generation and read by the termination policies.
+// the best is the best fitness of all generations so far. it is the lowest one if the problem minimizes the fitness.
+// the diversity is calculated by the source only when a policy asks for it, because it needs a pass over the population.
+public final class Progress {
+
+	public interface DiversitySource {
+		// the diversity of the current population, which is in [0, 1]. see MetricsRecorder.getDiversity().
+		double getDiversity();
+	}
+
+	private final boolean mMinimize;
+	private final DiversitySource mSource;
+
+	private long mStartNanos = 0;
+	private int mStartGeneration = 0;
+	private int mGeneration = 0;
+	private boolean mHasBest = false;
+	private double mBest = 0;
+	private int mBestGeneration = 0;
+	private long mEvaluations = 0;
+
+	private boolean mDiversityKnown = false;
+	private double mDiversity = 0;
+
+	public Progress(boolean minimize, DiversitySource source) {
+		mMinimize = minimize;
+		mSource = source;
+	}
+
+	// it starts the clock, and the run from the given generation, which is not 0 if it is resumed.
+	public void start(int generation) {
+		mStartNanos = System.nanoTime();
+		mStartGeneration = generation;
+		mGeneration = generation;
+		mHasBest = false;
+		mBest = 0;
+		mBestGeneration = generation;
+		mEvaluations = 0;
+		mDiversityKnown = false;
+	}
+
+	// generation is the number of the generations done, and evaluations is the number of the evaluations of the run,
+	// which includes the ones before it is resumed, see Snapshot.getEvaluations().
+	public void update(int generation, double best, long evaluations) {
+		mGeneration = generation;
+		mEvaluations = evaluations;
+		mDiversityKnown = false;
+
+		if (!mHasBest || isBetter(best, mBest)) {
+			mHasBest = true;
+			mBest = best;
+			mBestGeneration = generation;
+		}
+	}
+
+	public boolean isMinimizing() {
+		return mMinimize;
+	}
+
+	public int getGeneration() {
+		return mGeneration;
+	}
+
+	// the generation which the run is started or resumed from.
+	public int getStartGeneration() {
+		return mStartGeneration;
+	}
+
+	public double getBest() {
+		return mBest;
+	}
+
+	// the generation when the best was found last.
+	public int getBestGeneration() {
+		return mBestGeneration;
+	}
+
+	// the number of the generations without any improvement of the best.
+	public int getStallGenerations() {
+		return mGeneration - mBestGeneration;
+	}
+
+	public long getEvaluations() {
+		return mEvaluations;
+	}
+
+	public long getElapsedNanos() {
+		return System.nanoTime() - mStartNanos;
+	}
+
+	// it is calculated at most once per generation.
+	public double getDiversity() {
+		if (!mDiversityKnown) {
+			mDiversity = mSource.getDiversity();
+			mDiversityKnown = true;
+		}
+
+		return mDiversity;
+	}
+
+	// whether the best is as good as the target or better.
+	public boolean isReached(double target) {
+		return mHasBest && (mMinimize ? mBest <= target : mBest >= target);
+	}
+
+	private boolean isBetter(double fitness, double than) {
+		return mMinimize ? fitness < than : fitness > than;
+	}
+}
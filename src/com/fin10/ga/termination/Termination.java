@@ -0,0 +1,8 @@
+package com.fin10.ga.termination;
+
+// the policy which decides when a run stops. see Terminations for the policies and their compositions.
+public interface Termination {
+
+	// it is called before the first generation and after each generation. it returns true if the run should stop.
+	boolean isDone(Progress progress);
+}
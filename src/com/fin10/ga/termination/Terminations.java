@@ -0,0 +1,111 @@
+package com.fin10.ga.termination;
+
+import java.util.concurrent.TimeUnit;
+
+// the termination policies. they are checked between the generations, so a generation is never stopped in the middle,
+// and the time limit may be exceeded by the time of one generation.
+public final class Terminations {
+
+	private Terminations() {
+	}
+
+	// it stops after the given number of generations.
+	public static Termination generations(final int generations) {
+		return new Termination() {
+
+			@Override
+			public boolean isDone(Progress progress) {
+				return progress.getGeneration() >= generations;
+			}
+		};
+	}
+
+	// it stops if the best is not improved for the given number of generations.
+	public static Termination stall(final int generations) {
+		return new Termination() {
+
+			@Override
+			public boolean isDone(Progress progress) {
+				return progress.getStallGenerations() >= generations;
+			}
+		};
+	}
+
+	// it stops when the time from the start of the run exceeds the limit.
+	public static Termination timeLimit(long duration, TimeUnit unit) {
+		final long nanos = unit.toNanos(duration);
+		return new Termination() {
+
+			@Override
+			public boolean isDone(Progress progress) {
+				return progress.getElapsedNanos() >= nanos;
+			}
+		};
+	}
+
+	// it stops when the number of the evaluations from the start of the run reaches the budget.
+	// a resumed run continues the evaluations of the checkpoint, so the budget is not started again.
+	public static Termination evaluations(final long evaluations) {
+		return new Termination() {
+
+			@Override
+			public boolean isDone(Progress progress) {
+				return progress.getEvaluations() >= evaluations;
+			}
+		};
+	}
+
+	// it stops when the best reaches the target, e.g. the known optimum, or the bound which no solution can beat,
+	// like one food of the allergy problem.
+	public static Termination target(final double target) {
+		return new Termination() {
+
+			@Override
+			public boolean isDone(Progress progress) {
+				return progress.isReached(target);
+			}
+		};
+	}
+
+	// it stops when the diversity of the population falls below the floor.
+	// it is checked only after the first generation of the run, because a seeded population may start below the floor.
+	public static Termination diversityFloor(final double floor) {
+		return new Termination() {
+
+			@Override
+			public boolean isDone(Progress progress) {
+				return progress.getGeneration() > progress.getStartGeneration() && progress.getDiversity() < floor;
+			}
+		};
+	}
+
+	// it stops when any of the policies stops. the policies are checked in order.
+	public static Termination anyOf(final Termination... terminations) {
+		return new Termination() {
+
+			@Override
+			public boolean isDone(Progress progress) {
+				for (Termination termination : terminations) {
+					if (termination.isDone(progress)) return true;
+				}
+
+				return false;
+			}
+		};
+	}
+
+	// it stops when all of the policies stop.
+	public static Termination allOf(final Termination... terminations) {
+		return new Termination() {
+
+			@Override
+			public boolean isDone(Progress progress) {
+				for (Termination termination : terminations) {
+					if (!termination.isDone(progress)) return false;
+				}
+
+				return true;
+			}
+		};
+	}
+}
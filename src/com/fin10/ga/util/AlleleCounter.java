@@ -0,0 +1,127 @@
+package com.fin10.ga.util;
+
+import java.util.Arrays;
+
+import com.fin10.ga.metrics.MetricsRecorder;
+
+// the number of the genomes whose gene is 1 at each locus of a population of packed genomes, see Genome.
+// it keeps a copy of the genes which are counted, so a genome is counted again only by the genes which differ from
+// the copy, instead of counting the whole population every generation.
+// so the convergence, the diversity and the entropy are read in O(length).
+// the counts of disjoint word ranges may be updated by different threads at once.
+public final class AlleleCounter {
+
+	private final int mLength;
+	private final int mWords;
+	private final int[] mOnes;
+	private int mSize = 0;
+	// the counted genes. the genome i is at [i*words, (i+1)*words).
+	private long[] mGenes = new long[0];
+
+	public AlleleCounter(int length) {
+		mLength = length;
+		mWords = (length + 63) >>> 6;
+		mOnes = new int[length];
+	}
+
+	public int getLength() {
+		return mLength;
+	}
+
+	public int getWords() {
+		return mWords;
+	}
+
+	// the number of the individuals.
+	public int getSize() {
+		return mSize;
+	}
+
+	public int getOnes(int locus) {
+		return mOnes[locus];
+	}
+
+	// the ratio of the individuals whose gene is 1 at the locus.
+	public double getFrequency(int locus) {
+		return mSize > 0 ? (double) mOnes[locus] / mSize : 0;
+	}
+
+	// it starts counting a new population of the given size from zero. each genome is counted by update().
+	public void reset(int size) {
+		if (mGenes.length < (long) size * mWords) mGenes = new long[Math.multiplyExact(size, mWords)];
+
+		mSize = size;
+		Arrays.fill(mGenes, 0, size * mWords, 0);
+		Arrays.fill(mOnes, 0);
+	}
+
+	// it counts the genome i of words[offset, offset + words) by the genes which are changed after its last update.
+	public void update(int i, long[] words, int offset) {
+		update(i, words, offset, 0, mWords);
+	}
+
+	// it counts only the words in [from, to) of the genome, so different threads may update disjoint ranges at once.
+	public void update(int i, long[] words, int offset, int from, int to) {
+		if (i < 0 || i >= mSize) throw new IllegalArgumentException("the genome is not in the population: " + i);
+
+		int base = i * mWords;
+		for (int w = from; w < to; ++w) {
+			long word = words[offset + w];
+			long diff = mGenes[base + w] ^ word;
+			if (diff == 0) continue;
+
+			mGenes[base + w] = word;
+			for (; diff != 0; diff &= diff - 1) {
+				int bit = Long.numberOfTrailingZeros(diff);
+				mOnes[(w << 6) + bit] += (word >>> bit & 1) != 0 ? 1 : -1;
+			}
+		}
+	}
+
+	// the average ratio of the major allele, which is in [0.5, 1]. it is 1 if all individuals are same.
+	public float getConvergence() {
+		if (mLength == 0 || mSize == 0) return 1;
+
+		float total = 0;
+		for (int i = 0; i < mLength; ++i) {
+			total += Math.max(mOnes[i], mSize - mOnes[i]);
+		}
+
+		return (total / mSize) / mLength;
+	}
+
+	// the diversity of MetricsRecorder, which is 2 * (1 - convergence).
+	public double getDiversity() {
+		return MetricsRecorder.getDiversity(mOnes, mLength, mSize);
+	}
+
+	// the binary entropy of the locus in bits, which is in [0, 1]. it is 0 if the locus is fixed.
+	public double getEntropy(int locus) {
+		int ones = mOnes[locus];
+		if (ones == 0 || ones == mSize) return 0;
+
+		double p = (double) ones / mSize;
+		return -(p * Math.log(p) + (1 - p) * Math.log(1 - p)) / Math.log(2);
+	}
+
+	public double getAverageEntropy() {
+		if (mLength == 0) return 0;
+
+		double total = 0;
+		for (int i = 0; i < mLength; ++i) {
+			total += getEntropy(i);
+		}
+
+		return total / mLength;
+	}
+
+	// the number of the loci where all individuals have the same gene.
+	public int countFixed() {
+		int count = 0;
+		for (int i = 0; i < mLength; ++i) {
+			if (mOnes[i] == 0 || mOnes[i] == mSize) ++count;
+		}
+
+		return count;
+	}
+}
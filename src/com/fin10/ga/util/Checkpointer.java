@@ -0,0 +1,151 @@
+package com.fin10.ga.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// it writes the snapshots of a run into a file on its own thread, so the generations don't wait for the disk.
+// there are two snapshots: while one is written, the other is filled by the generation loop.
+// if both are still busy, the checkpoint is skipped instead of stalling the loop.
+// the snapshot is written into a temporary file which replaces the file at once, so the file is always complete.
+public final class Checkpointer implements Closeable {
+
+	private final Path mFile;
+	private final Path mTemporary;
+	private final ExecutorService mWriter;
+
+	private final Snapshot[] mSnapshots = { new Snapshot(), new Snapshot() };
+	private final AtomicBoolean[] mBusy = { new AtomicBoolean(), new AtomicBoolean() };
+	private final ByteBuffer[] mBuffers = new ByteBuffer[2];
+
+	private volatile IOException mError = null;
+	private int mWritten = 0;
+	private int mSkipped = 0;
+
+	public Checkpointer(String fileName) {
+		mFile = Paths.get(fileName);
+		mTemporary = Paths.get(fileName + ".tmp");
+		mWriter = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "checkpoint " + mFile.getFileName());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	// it returns the snapshot of the file, or null if there is no file.
+	// a snapshot is written into one buffer, so a file larger than a buffer is not a snapshot.
+	public static Snapshot read(String fileName) throws IOException {
+		Path file = Paths.get(fileName);
+		if (!Files.exists(file)) return null;
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Snapshot.MAX_BYTES) throw new IOException("the file is too large for a snapshot: " + size);
+
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) break;
+			}
+
+			buffer.flip();
+			return Snapshot.read(buffer);
+		}
+	}
+
+	// it returns a free snapshot to fill, or null if both snapshots are being written.
+	// the snapshot must be passed to submit() after it is filled.
+	public Snapshot acquire() throws IOException {
+		if (mError != null) throw mError;
+
+		for (int i = 0; i < mSnapshots.length; ++i) {
+			if (mBusy[i].compareAndSet(false, true)) return mSnapshots[i];
+		}
+
+		++mSkipped;
+		return null;
+	}
+
+	public void submit(Snapshot snapshot) {
+		final int index = snapshot == mSnapshots[0] ? 0 : 1;
+		if (mSnapshots[index] != snapshot) throw new IllegalArgumentException("the snapshot is not acquired from it.");
+
+		++mWritten;
+		mWriter.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					write(index);
+				} catch (IOException e) {
+					mError = e;
+				} finally {
+					mBusy[index].set(false);
+				}
+			}
+		});
+	}
+
+	// the number of the submitted snapshots and the skipped checkpoints.
+	public int getWritten() {
+		return mWritten;
+	}
+
+	public int getSkipped() {
+		return mSkipped;
+	}
+
+	// it waits until the submitted snapshots are written.
+	@Override
+	public void close() throws IOException {
+		mWriter.shutdown();
+		try {
+			mWriter.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+
+		if (mError != null) throw mError;
+	}
+
+	private void write(int index) throws IOException {
+		Snapshot snapshot = mSnapshots[index];
+		long size = snapshot.getByteSize();
+		if (size > Snapshot.MAX_BYTES) throw new IOException("the snapshot is too large: " + size);
+
+		if (mBuffers[index] == null || mBuffers[index].capacity() < size) {
+			mBuffers[index] = ByteBuffer.allocateDirect((int) size);
+		}
+
+		ByteBuffer buffer = mBuffers[index];
+		buffer.clear();
+		snapshot.write(buffer);
+		buffer.flip();
+
+		try (FileChannel channel = FileChannel.open(mTemporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+		}
+
+		Files.move(mTemporary, mFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -0,0 +1,122 @@
+package com.fin10.ga.util;
+
+import java.util.Random;
+
+// the xoshiro256** generator as a java.util.Random, so it can be used by anything which takes a Random,
+// like Collections.shuffle() and RouletteWheel.
+// unlike Random, its state is not atomic, so it must not be shared by threads. it is much faster for a single thread.
+// its state is the four words of getState(), which are saved in a Snapshot.
+public final class FastRandom extends Random {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int STATE_WORDS = 4;
+
+	private static final float FLOAT_UNIT = 0x1.0p-24f;
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+	// they are set by setSeed(), which is called by the constructor of Random before the initializers of this class,
+	// so they must not have initializers.
+	private long s0;
+	private long s1;
+	private long s2;
+	private long s3;
+
+	public FastRandom(long seed) {
+		super(seed);
+	}
+
+	// the state is filled by SplitMix64 from the seed, so it is never all zero.
+	@Override
+	public void setSeed(long seed) {
+		s0 = mix(seed += 0x9E3779B97F4A7C15L);
+		s1 = mix(seed += 0x9E3779B97F4A7C15L);
+		s2 = mix(seed += 0x9E3779B97F4A7C15L);
+		s3 = mix(seed + 0x9E3779B97F4A7C15L);
+	}
+
+	// it copies the state into state[0, STATE_WORDS).
+	// the pending value of nextGaussian() is not a part of it, so it is not restored.
+	public void getState(long[] state) {
+		state[0] = s0;
+		state[1] = s1;
+		state[2] = s2;
+		state[3] = s3;
+	}
+
+	// it continues from the state of getState(). the state must not be all zero.
+	public void setState(long[] state) {
+		if ((state[0] | state[1] | state[2] | state[3]) == 0) throw new IllegalArgumentException("the state is all zero.");
+
+		s0 = state[0];
+		s1 = state[1];
+		s2 = state[2];
+		s3 = state[3];
+	}
+
+	@Override
+	public long nextLong() {
+		long result = Long.rotateLeft(s1 * 5, 7) * 9;
+		long t = s1 << 17;
+
+		s2 ^= s0;
+		s3 ^= s1;
+		s1 ^= s2;
+		s0 ^= s3;
+		s2 ^= t;
+		s3 = Long.rotateLeft(s3, 45);
+
+		return result;
+	}
+
+	// the high bits are the best of xoshiro256**.
+	@Override
+	protected int next(int bits) {
+		return (int) (nextLong() >>> (64 - bits));
+	}
+
+	@Override
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+
+	// the Lemire's method, which needs no division in most cases.
+	@Override
+	public int nextInt(int bound) {
+		if (bound <= 0) throw new IllegalArgumentException("bound must be positive: " + bound);
+
+		long m = (nextLong() >>> 32) * bound;
+		long low = m & 0xFFFFFFFFL;
+		if (low < bound) {
+			long threshold = (0x100000000L - bound) % bound;
+			while (low < threshold) {
+				m = (nextLong() >>> 32) * bound;
+				low = m & 0xFFFFFFFFL;
+			}
+		}
+
+		return (int) (m >>> 32);
+	}
+
+	@Override
+	public boolean nextBoolean() {
+		return nextLong() < 0;
+	}
+
+	@Override
+	public float nextFloat() {
+		return (nextLong() >>> 40) * FLOAT_UNIT;
+	}
+
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	// the finalizer of SplitMix64, e.g. for the seeds of the chunks of ParallelEvaluator.
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,253 @@
+package com.fin10.ga.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// a bounded cache of the fitness of the genomes which are packed into 64-bit words.
+// the genome is found by its 64-bit hash and confirmed by comparing all words, so a collision never returns a wrong fitness.
+// it is divided into segments by the hash, so the evaluating threads rarely wait for each other.
+// the capacity is divided among the segments, and each segment evicts its own least recently used genome when it is full.
+// so the evicted genome is the least recently used one of its segment, not always of the whole cache, but the hash
+// spreads the genomes evenly and the segments fill at about the same rate.
+//
+// each segment is a hash table of preallocated entries with a linked list of the use order,
+// so get() probes the table with the given words and allocates nothing.
+public final class FitnessCache {
+
+	private static final int SEGMENTS = 16;
+	private static final int NONE = -1;
+
+	private static final class Segment {
+
+		private final int capacity;
+		private int size = 0;
+
+		// the head of the chain of each bucket, and the next entry of the chain of each entry.
+		private final int[] buckets;
+		private final int[] chains;
+		// the list of the entries from the least recently used one to the most recently used one.
+		private final int[] older;
+		private final int[] newer;
+		private int eldest = NONE;
+		private int newest = NONE;
+
+		private final long[] hashes;
+		private final long[][] words;
+		private final long[] values;
+
+		private Segment(int capacity) {
+			this.capacity = capacity;
+			int buckets = Integer.highestOneBit(Math.max(1, capacity * 2 - 1));
+			this.buckets = new int[buckets];
+			Arrays.fill(this.buckets, NONE);
+			chains = new int[capacity];
+			older = new int[capacity];
+			newer = new int[capacity];
+			hashes = new long[capacity];
+			words = new long[capacity][];
+			values = new long[capacity];
+		}
+
+		// it returns the entry of the genome, or NONE.
+		private int find(long[] words, int offset, int length, long hash) {
+			for (int e = buckets[getBucket(hash)]; e != NONE; e = chains[e]) {
+				if (hashes[e] == hash && equals(this.words[e], words, offset, length)) return e;
+			}
+
+			return NONE;
+		}
+
+		private void put(long[] words, int offset, int length, long hash, long value) {
+			int e = find(words, offset, length, hash);
+			if (e == NONE) {
+				if (size < capacity) {
+					e = size++;
+				} else {
+					e = eldest;
+					unlink(e);
+					removeFromBucket(e);
+				}
+
+				// the words of the evicted genome are reused, because the genomes of a run have the same length.
+				if (this.words[e] == null || this.words[e].length != length) this.words[e] = new long[length];
+				System.arraycopy(words, offset, this.words[e], 0, length);
+				hashes[e] = hash;
+				int bucket = getBucket(hash);
+				chains[e] = buckets[bucket];
+				buckets[bucket] = e;
+			} else {
+				unlink(e);
+			}
+
+			values[e] = value;
+			append(e);
+		}
+
+		// it makes the entry the most recently used one.
+		private void use(int e) {
+			if (e == newest) return;
+
+			unlink(e);
+			append(e);
+		}
+
+		private void unlink(int e) {
+			if (older[e] == NONE) eldest = newer[e];
+			else newer[older[e]] = newer[e];
+			if (newer[e] == NONE) newest = older[e];
+			else older[newer[e]] = older[e];
+		}
+
+		private void append(int e) {
+			older[e] = newest;
+			newer[e] = NONE;
+			if (newest == NONE) eldest = e;
+			else newer[newest] = e;
+			newest = e;
+		}
+
+		private void removeFromBucket(int e) {
+			int bucket = getBucket(hashes[e]);
+			if (buckets[bucket] == e) {
+				buckets[bucket] = chains[e];
+				return;
+			}
+
+			int previous = buckets[bucket];
+			while (chains[previous] != e) {
+				previous = chains[previous];
+			}
+			chains[previous] = chains[e];
+		}
+
+		private void clear() {
+			Arrays.fill(buckets, NONE);
+			size = 0;
+			eldest = NONE;
+			newest = NONE;
+		}
+
+		// the top bits of the hash select the segment, so the bucket is taken from the bottom bits.
+		private int getBucket(long hash) {
+			return (int) hash & (buckets.length - 1);
+		}
+
+		private static boolean equals(long[] key, long[] words, int offset, int length) {
+			if (key.length != length) return false;
+
+			for (int i = 0; i < length; ++i) {
+				if (key[i] != words[offset + i]) return false;
+			}
+
+			return true;
+		}
+	}
+
+	private final Segment[] mSegments = new Segment[SEGMENTS];
+	private final LongAdder mHits = new LongAdder();
+	private final LongAdder mMisses = new LongAdder();
+
+	// the capacity is the maximum number of the genomes in the cache. the remainder of the division by the segments
+	// is given to the first segments, so the segments hold exactly the capacity together.
+	public FitnessCache(int capacity) {
+		if (capacity < SEGMENTS) throw new IllegalArgumentException("capacity must be at least " + SEGMENTS + ": " + capacity);
+
+		for (int i = 0; i < SEGMENTS; ++i) {
+			mSegments[i] = new Segment(capacity / SEGMENTS + (i < capacity % SEGMENTS ? 1 : 0));
+		}
+	}
+
+	// if the genome in words [offset, offset + length) is in the cache, it sets fitness[0] to its fitness and
+	// returns true. every long is a valid fitness, e.g. the bits of -0.0, so the presence is the return value.
+	public boolean get(long[] words, int offset, int length, long[] fitness) {
+		long hash = hash(words, offset, length);
+		Segment segment = getSegment(hash);
+		int e;
+		synchronized (segment) {
+			e = segment.find(words, offset, length, hash);
+			if (e != NONE) {
+				segment.use(e);
+				fitness[0] = segment.values[e];
+			}
+		}
+
+		if (e == NONE) {
+			mMisses.increment();
+			return false;
+		}
+
+		mHits.increment();
+		return true;
+	}
+
+	// the words are copied, so the caller may change them after this.
+	public void put(long[] words, int offset, int length, long fitness) {
+		long hash = hash(words, offset, length);
+		Segment segment = getSegment(hash);
+		synchronized (segment) {
+			segment.put(words, offset, length, hash, fitness);
+		}
+	}
+
+	public long getHits() {
+		return mHits.sum();
+	}
+
+	public long getMisses() {
+		return mMisses.sum();
+	}
+
+	public double getHitRate() {
+		long hits = getHits();
+		long total = hits + getMisses();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment segment : mSegments) {
+			synchronized (segment) {
+				size += segment.size;
+			}
+		}
+
+		return size;
+	}
+
+	public void clear() {
+		for (Segment segment : mSegments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+
+		mHits.reset();
+		mMisses.reset();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("size: %d, hits: %d, misses: %d, hit rate: %.3f", size(), getHits(), getMisses(), getHitRate());
+	}
+
+	private Segment getSegment(long hash) {
+		return mSegments[(int) (hash >>> 60)];
+	}
+
+	// each word is mixed by the finalizer of SplitMix64, so the high bits of the hash depend on all words.
+	// the top 4 bits select the segment.
+	static long hash(long[] words, int offset, int length) {
+		long hash = length;
+		for (int i = 0; i < length; ++i) {
+			hash = mix(hash + words[offset + i] * 0x9E3779B97F4A7C15L);
+		}
+
+		return hash;
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,43 @@
+package com.fin10.ga.util;
+
+import java.util.Random;
+
+// it samples the genes which are mutated in the probability p, without a random value for each gene.
+// the number of the genes between two mutated genes follows the geometric distribution,
+// so it is drawn directly by the inversion, floor(log(U) / log(1-p)). a genome of length L needs about p*L random values.
+//
+//	for (int i = skip.first(random); i < length; i = skip.next(i, random)) {
+//		flip(i);
+//	}
+public final class GeometricSkip {
+
+	private final float mProb;
+	// 1 / log(1-p). it is 0 if p >= 1, so every gene is mutated.
+	private final double mScale;
+
+	public GeometricSkip(float prob) {
+		mProb = prob;
+		mScale = prob >= 1 ? 0 : 1 / Math.log1p(-prob);
+	}
+
+	public float getProb() {
+		return mProb;
+	}
+
+	// the first mutated gene. it is Integer.MAX_VALUE if no gene is mutated.
+	public int first(Random random) {
+		return next(-1, random);
+	}
+
+	// the mutated gene after the index.
+	public int next(int index, Random random) {
+		if (mProb <= 0) return Integer.MAX_VALUE;
+		if (mProb >= 1) return index + 1;
+
+		// 1 - nextDouble() is in (0, 1], so the log is finite. but the skip of a tiny p may be larger than a long,
+		// so it is bounded before it is added.
+		double skip = Math.min(Math.log(1 - random.nextDouble()) * mScale, Integer.MAX_VALUE);
+		long next = index + 1L + (long) skip;
+		return next < Integer.MAX_VALUE ? (int) next : Integer.MAX_VALUE;
+	}
+}
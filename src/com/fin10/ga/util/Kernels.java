@@ -0,0 +1,43 @@
+package com.fin10.ga.util;
+
+// the inner loops of the fitness, the distance and the diversity, which are selected once at startup.
+//
+// the vector kernels use the incubating vector API, so they are in the separate source root 'src-vector',
+// which is compiled and run with '--add-modules jdk.incubator.vector'. if they are not on the class path,
+// or the module is not added, the scalar kernels are used.
+// '-Dga.kernels=scalar' forces the scalar kernels.
+public abstract class Kernels {
+
+	private static final String VECTOR_KERNELS = "com.fin10.ga.util.VectorKernels";
+
+	private static final Kernels INSTANCE = select();
+
+	public static Kernels get() {
+		return INSTANCE;
+	}
+
+	private static Kernels select() {
+		if ("scalar".equals(System.getProperty("ga.kernels"))) return new ScalarKernels();
+
+		try {
+			return (Kernels) Class.forName(VECTOR_KERNELS).getConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return new ScalarKernels();
+		}
+	}
+
+	public abstract String getName();
+
+	// the sum of values[i] for each bit i which is 1 in words [offset, offset + (length+63)/64).
+	// the bits after length must be 0.
+	public abstract int maskedSum(long[] words, int offset, int[] values, int length);
+
+	// the number of different bits of two packed genomes.
+	public abstract int hammingDistance(long[] words1, int offset1, long[] words2, int offset2, int count);
+
+	// it adds 1 to counts[i] for each bit i which is 1. the bits after length must be 0.
+	public abstract void addBitCounts(long[] words, int offset, int[] counts, int length);
+
+	// it adds 1 to counts[i] for each values[i] which is true.
+	public abstract void addCounts(boolean[] values, int[] counts, int length);
+}
@@ -0,0 +1,246 @@
+package com.fin10.ga.util;
+
+import java.util.Arrays;
+
+// it keeps the niche count, the sum of h(d) = 1 - d/radius over the other genomes within the hamming distance 'radius',
+// of each packed genome of a population. it is the fitness sharing of TwoMaxProblem and of the engine.
+//
+// it keeps its own copy of the genes, so only the genes which are changed after the last count are calculated again,
+// and the change of a sum is the difference of the old and the new h(d) of each pair.
+// the distances are kept in a symmetric matrix, so each pair is calculated only once, while the matrix fits in
+// MAX_DISTANCES and the radius fits in a short. otherwise, the old distances are calculated again from the copy of
+// the old genes, so the memory is O(N) instead of O(N^2).
+public final class NicheCounter {
+
+	private static final Kernels KERNELS = Kernels.get();
+
+	// 128 MB of distances, which is a population of about 11k genomes.
+	private static final long MAX_DISTANCES = 1L << 26;
+
+	private final ParallelEvaluator mEvaluator;
+	private final float mRadius;
+	// h(d) is 0 for every distance from the radius, so a distance is kept as at most it.
+	// the matrix is used only if it fits in a short.
+	private final int mMaxDistance;
+	private final long mMaxDistances;
+
+	private int mSize = 0;
+	private int mWords = 0;
+	// the genes of the last count and the changed genes which are not counted yet.
+	// the genome i is at [i*words, (i+1)*words) of both.
+	private long[] mGenes = new long[0];
+	private long[] mChangedGenes = new long[0];
+	private boolean[] mChanged = new boolean[0];
+	// the changed genomes in the order of change(), and the position of each changed genome in it.
+	private int[] mChangedSlots = new int[0];
+	private int[] mChangedOrder = new int[0];
+	private int mChangedSize = 0;
+
+	// the lower triangle of the distance matrix, or null if it is not used.
+	// (i, j) where i > j is stored at i*(i-1)/2 + j.
+	private short[] mDistances = null;
+	private double[] mSums = new double[0];
+
+	public NicheCounter(float radius, ParallelEvaluator evaluator) {
+		this(radius, evaluator, MAX_DISTANCES);
+	}
+
+	// the test passes a small maxDistances to check the counts without the matrix on a small population.
+	NicheCounter(float radius, ParallelEvaluator evaluator, long maxDistances) {
+		if (radius <= 0) throw new IllegalArgumentException("radius must be positive: " + radius);
+
+		mRadius = radius;
+		mMaxDistance = (int) Math.min(Integer.MAX_VALUE, Math.ceil(radius));
+		mMaxDistances = mMaxDistance <= Short.MAX_VALUE ? maxDistances : -1;
+		mEvaluator = evaluator;
+	}
+
+	public float share(int distance) {
+		return distance < mRadius ? 1.f - distance / mRadius : 0.f;
+	}
+
+	public int size() {
+		return mSize;
+	}
+
+	// it prepares the counter for 'size' genomes of 'words' words and returns the array of their genes,
+	// which must be filled before rebuild(). the genome i is at [i*words, (i+1)*words).
+	public long[] prepare(int size, int words) {
+		if (mGenes.length < (long) size * words || mSums.length < size) {
+			mGenes = new long[Math.multiplyExact(size, words)];
+			mChangedGenes = new long[mGenes.length];
+			mChanged = new boolean[size];
+			mChangedSlots = new int[size];
+			mChangedOrder = new int[size];
+			mSums = new double[size];
+		}
+
+		long distances = index(size, 0);
+		if (distances > mMaxDistances) {
+			mDistances = null;
+		} else if (mDistances == null || mDistances.length < distances) {
+			mDistances = new short[(int) distances];
+		}
+
+		mSize = size;
+		mWords = words;
+		Arrays.fill(mChanged, 0, size, false);
+		mChangedSize = 0;
+		return mGenes;
+	}
+
+	// it calculates all niche counts of the prepared genes in parallel.
+	public void rebuild() {
+		final int size = mSize;
+		if (mDistances == null) {
+			// there is no matrix to share the distances between the rows, so each row calculates all its distances.
+			mEvaluator.execute(size, new ParallelEvaluator.Task() {
+
+				@Override
+				public void run(int from, int to) {
+					for (int i = from; i < to; ++i) {
+						double sum = 0;
+						for (int j = 0; j < size; ++j) {
+							if (i != j) sum += share(getDistance(mGenes, i, mGenes, j));
+						}
+
+						mSums[i] = sum;
+					}
+				}
+			});
+			return;
+		}
+
+		// the row i has i distances, so the row i and the row (size-1-i) are calculated together to balance the chunks.
+		mEvaluator.execute((size + 1) / 2, new ParallelEvaluator.Task() {
+
+			@Override
+			public void run(int from, int to) {
+				for (int i = from; i < to; ++i) {
+					calculateRow(i);
+					if (size - 1 - i != i) calculateRow(size - 1 - i);
+				}
+			}
+		});
+
+		// each chunk sums only its own rows, so no sum is shared between threads.
+		mEvaluator.execute(size, new ParallelEvaluator.Task() {
+
+			@Override
+			public void run(int from, int to) {
+				for (int i = from; i < to; ++i) {
+					double sum = 0;
+					long row = index(i, 0);
+					for (int j = 0; j < i; ++j) {
+						sum += share(mDistances[(int) (row + j)]);
+					}
+					for (int j = i + 1; j < size; ++j) {
+						sum += share(mDistances[(int) index(j, i)]);
+					}
+
+					mSums[i] = sum;
+				}
+			}
+		});
+	}
+
+	private void calculateRow(int i) {
+		long row = index(i, 0);
+		for (int j = 0; j < i; ++j) {
+			mDistances[(int) (row + j)] = (short) Math.min(mMaxDistance, getDistance(mGenes, i, mGenes, j));
+		}
+	}
+
+	// it sets the new genes of the genome i from words[offset, offset + words). they are counted by update().
+	// nothing is changed if they are same as the counted genes.
+	public void change(int i, long[] words, int offset) {
+		checkSlot(i);
+		if (!mChanged[i] && isSame(words, offset, i)) return;
+
+		System.arraycopy(words, offset, mChangedGenes, i * mWords, mWords);
+		if (!mChanged[i]) {
+			mChanged[i] = true;
+			mChangedOrder[i] = mChangedSize;
+			mChangedSlots[mChangedSize++] = i;
+		}
+	}
+
+	// it counts the changed genes. the sum of every other genome changes by one h(d) term for each changed genome,
+	// so it costs O(N) for each of them. if more than half of the genomes are changed, calculating all pairs again
+	// by rebuild() is cheaper.
+	public void update() {
+		boolean rebuilding = mChangedSize > mSize / 2;
+		if (!rebuilding) {
+			for (int k = 0; k < mChangedSize; ++k) {
+				updateRow(mChangedSlots[k]);
+			}
+		}
+
+		for (int k = 0; k < mChangedSize; ++k) {
+			int i = mChangedSlots[k];
+			System.arraycopy(mChangedGenes, i * mWords, mGenes, i * mWords, mWords);
+			mChanged[i] = false;
+		}
+		mChangedSize = 0;
+		if (rebuilding) rebuild();
+	}
+
+	// it sets the new genes of the genome i and counts them at once, like change() and update().
+	public void replace(int i, long[] words, int offset) {
+		change(i, words, offset);
+		update();
+	}
+
+	// the old genes are still in mGenes until all rows are updated.
+	private void updateRow(int i) {
+		for (int j = 0; j < mSize; ++j) {
+			// the pair of two changed genomes is updated only once, in the row which is updated first.
+			if (i == j || (mChanged[j] && mChangedOrder[j] < mChangedOrder[i])) continue;
+
+			int old;
+			long idx = -1;
+			if (mDistances != null) {
+				idx = i > j ? index(i, j) : index(j, i);
+				old = mDistances[(int) idx];
+			} else {
+				old = Math.min(mMaxDistance, getDistance(mGenes, i, mGenes, j));
+			}
+
+			int distance = Math.min(mMaxDistance, mChanged[j] ? getDistance(mChangedGenes, i, mChangedGenes, j)
+					: getDistance(mChangedGenes, i, mGenes, j));
+			if (old != distance) {
+				if (idx >= 0) mDistances[(int) idx] = (short) distance;
+
+				float delta = share(distance) - share(old);
+				mSums[i] += delta;
+				mSums[j] += delta;
+			}
+		}
+	}
+
+	public double getNicheCount(int i) {
+		checkSlot(i);
+		return mSums[i];
+	}
+
+	private boolean isSame(long[] words, int offset, int i) {
+		for (int w = 0; w < mWords; ++w) {
+			if (words[offset + w] != mGenes[i * mWords + w]) return false;
+		}
+
+		return true;
+	}
+
+	private int getDistance(long[] genes1, int i, long[] genes2, int j) {
+		return KERNELS.hammingDistance(genes1, i * mWords, genes2, j * mWords, mWords);
+	}
+
+	private void checkSlot(int i) {
+		if (i < 0 || i >= mSize) throw new IllegalArgumentException("the genome is not in the population: " + i);
+	}
+
+	// it is a long, because the index of a large population doesn't fit in an int.
+	private static long index(int i, int j) {
+		return (long) i * (i - 1) / 2 + j;
+	}
+}
@@ -0,0 +1,109 @@
+package com.fin10.ga.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// it runs a task over the index range [0, size) on a fork-join pool.
+// the range is always split into 'threads' chunks and each chunk gets its own seed derived from the given seed in order,
+// so the result is reproducible for the same seed and the same thread count.
+public final class ParallelEvaluator {
+
+	public interface Task {
+		void run(int from, int to);
+	}
+
+	public interface RandomTask {
+		// random is the FastRandom of the running thread, which is seeded for the chunk. it is reseeded by the next
+		// chunk on the thread, so it must not be kept after the task.
+		void run(int from, int to, Random random);
+	}
+
+	// the random of each thread which runs the chunks. it is reseeded for every chunk instead of allocated.
+	private static final ThreadLocal<FastRandom> RANDOMS = new ThreadLocal<FastRandom>() {
+
+		@Override
+		protected FastRandom initialValue() {
+			return new FastRandom(0);
+		}
+	};
+
+	private final int mThreads;
+	private final ForkJoinPool mPool;
+
+	public ParallelEvaluator(int threads) {
+		if (threads < 1) throw new IllegalArgumentException("threads must be positive: " + threads);
+
+		mThreads = threads;
+		mPool = threads > 1 ? new ForkJoinPool(threads) : null;
+	}
+
+	public int getThreads() {
+		return mThreads;
+	}
+
+	public void execute(int size, Task task) {
+		execute(size, 0, task, null);
+	}
+
+	public void execute(int size, long seed, RandomTask task) {
+		execute(size, seed, null, task);
+	}
+
+	// exactly one of the tasks is given.
+	private void execute(int size, final long seed, final Task task, final RandomTask randomTask) {
+		if (mPool == null) {
+			run(0, size, seed, 0, task, randomTask);
+			return;
+		}
+
+		List<Callable<Void>> tasks = new ArrayList<>(mThreads);
+		for (int i = 0; i < mThreads; ++i) {
+			final int from = (int) ((long) size * i / mThreads);
+			final int to = (int) ((long) size * (i + 1) / mThreads);
+			final int chunk = i;
+			tasks.add(new Callable<Void>() {
+
+				@Override
+				public Void call() {
+					run(from, to, seed, chunk, task, randomTask);
+					return null;
+				}
+			});
+		}
+
+		try {
+			for (Future<Void> future : mPool.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	// the seed of the chunk is mixed, so the chunks of adjacent seeds don't share their streams.
+	private static void run(int from, int to, long seed, int chunk, Task task, RandomTask randomTask) {
+		if (task != null) {
+			task.run(from, to);
+			return;
+		}
+
+		FastRandom random = RANDOMS.get();
+		random.setSeed(FastRandom.mix(seed + (chunk + 1) * 0x9E3779B97F4A7C15L));
+		randomTask.run(from, to, random);
+	}
+
+	public void shutdown() {
+		if (mPool != null) mPool.shutdown();
+	}
+}
@@ -0,0 +1,161 @@
+package com.fin10.ga.util;
+
+import java.util.Random;
+
+// the roulette wheel over non-negative scores.
+// it is built once per generation and then the indices are selected in proportion to their scores.
+// if all scores are 0, every index has the same chance.
+public final class RouletteWheel {
+
+	public enum Method {
+		// the cumulative scores are searched by the binary search. O(log N) per selection.
+		BINARY_SEARCH,
+		// the Walker's alias method. O(N) to build the table and O(1) per selection.
+		ALIAS,
+		// the stochastic universal sampling. all selections share one random point, so O(N) for all selections.
+		STOCHASTIC_UNIVERSAL
+	}
+
+	private int mSize = 0;
+	private long mTotal = 0;
+	// mCumulative[i] is the sum of the scores in [0, i].
+	private long[] mCumulative = new long[0];
+
+	// the alias table is built only when it is used first after build().
+	private boolean mAliasBuilt = false;
+	private double[] mProbability = new double[0];
+	private int[] mAlias = new int[0];
+	private int[] mWorklist = new int[0];
+
+	// it builds the wheel with the first 'size' scores.
+	public void build(long[] scores, int size) {
+		if (mCumulative.length < size) {
+			mCumulative = new long[size];
+		}
+
+		long total = 0;
+		for (int i = 0; i < size; ++i) {
+			if (scores[i] < 0) throw new IllegalArgumentException("the score must not be negative: " + scores[i]);
+
+			total += scores[i];
+			mCumulative[i] = total;
+		}
+
+		mSize = size;
+		mTotal = total;
+		mAliasBuilt = false;
+	}
+
+	// it builds what the method needs before the selection, so select() only reads the wheel after it.
+	// it must be called before the wheel is shared by threads.
+	public void prepare(Method method) {
+		if (method == Method.ALIAS) buildAlias();
+	}
+
+	// it fills the result with 'count' selected indices.
+	public void select(Method method, Random random, int[] result, int count) {
+		select(method, random, result, 0, count);
+	}
+
+	// it fills result[from, to) with selected indices.
+	// after prepare(), it can be called by several threads at once for disjoint ranges, each with its own random.
+	public void select(Method method, Random random, int[] result, int from, int to) {
+		if (mSize == 0) throw new IllegalStateException("the wheel is empty.");
+
+		switch (method) {
+		case BINARY_SEARCH:
+			for (int i = from; i < to; ++i) {
+				result[i] = mTotal > 0 ? search(nextLong(random, mTotal)) : random.nextInt(mSize);
+			}
+			break;
+
+		case ALIAS:
+			buildAlias();
+			for (int i = from; i < to; ++i) {
+				int column = random.nextInt(mSize);
+				result[i] = random.nextDouble() < mProbability[column] ? column : mAlias[column];
+			}
+			break;
+
+		case STOCHASTIC_UNIVERSAL:
+			if (mTotal <= 0) {
+				for (int i = from; i < to; ++i) {
+					result[i] = random.nextInt(mSize);
+				}
+				break;
+			}
+
+			if (to <= from) break;
+
+			double step = (double) mTotal / (to - from);
+			double point = random.nextDouble() * step;
+			int index = 0;
+			for (int i = from; i < to; ++i, point += step) {
+				while (index < mSize - 1 && mCumulative[index] <= point) ++index;
+				result[i] = index;
+			}
+			break;
+		}
+	}
+
+	// it returns the first index whose cumulative score is greater than the point.
+	private int search(long point) {
+		int low = 0, high = mSize - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (mCumulative[mid] > point) high = mid;
+			else low = mid + 1;
+		}
+
+		return low;
+	}
+
+	// the Vose's version of the alias method.
+	private void buildAlias() {
+		if (mAliasBuilt) return;
+
+		if (mProbability.length < mSize) {
+			mProbability = new double[mSize];
+			mAlias = new int[mSize];
+			mWorklist = new int[mSize];
+		}
+
+		// the small columns are pushed from the front and the large columns from the back of the worklist.
+		int small = 0, large = mSize;
+		for (int i = 0; i < mSize; ++i) {
+			long score = mCumulative[i] - (i > 0 ? mCumulative[i - 1] : 0);
+			mProbability[i] = mTotal > 0 ? (double) score * mSize / mTotal : 1.;
+			mAlias[i] = i;
+			if (mProbability[i] < 1.) mWorklist[small++] = i;
+			else mWorklist[--large] = i;
+		}
+
+		while (small > 0 && large < mSize) {
+			int less = mWorklist[--small];
+			int more = mWorklist[large];
+			mAlias[less] = more;
+			mProbability[more] += mProbability[less] - 1.;
+			if (mProbability[more] < 1.) {
+				++large;
+				mWorklist[small++] = more;
+			}
+		}
+
+		// the rest columns are full because of the rounding error.
+		while (small > 0) mProbability[mWorklist[--small]] = 1.;
+		while (large < mSize) mProbability[mWorklist[large++]] = 1.;
+
+		mAliasBuilt = true;
+	}
+
+	// a uniform random value in [0, bound).
+	private static long nextLong(Random random, long bound) {
+		long bits, value;
+		do {
+			bits = random.nextLong() >>> 1;
+			value = bits % bound;
+		} while (bits - value + (bound - 1) < 0);
+
+		return value;
+	}
+}
@@ -0,0 +1,54 @@
+package com.fin10.ga.util;
+
+// the kernels which iterate over the 1 bits of each word.
+final class ScalarKernels extends Kernels {
+
+	@Override
+	public String getName() {
+		return "scalar";
+	}
+
+	@Override
+	public int maskedSum(long[] words, int offset, int[] values, int length) {
+		int sum = 0;
+		int count = (length + 63) >>> 6;
+		for (int i = 0; i < count; ++i) {
+			long word = words[offset + i];
+			while (word != 0) {
+				sum += values[(i << 6) + Long.numberOfTrailingZeros(word)];
+				word &= word - 1;
+			}
+		}
+
+		return sum;
+	}
+
+	@Override
+	public int hammingDistance(long[] words1, int offset1, long[] words2, int offset2, int count) {
+		int distance = 0;
+		for (int i = 0; i < count; ++i) {
+			distance += Long.bitCount(words1[offset1 + i] ^ words2[offset2 + i]);
+		}
+
+		return distance;
+	}
+
+	@Override
+	public void addBitCounts(long[] words, int offset, int[] counts, int length) {
+		int count = (length + 63) >>> 6;
+		for (int i = 0; i < count; ++i) {
+			long word = words[offset + i];
+			while (word != 0) {
+				++counts[(i << 6) + Long.numberOfTrailingZeros(word)];
+				word &= word - 1;
+			}
+		}
+	}
+
+	@Override
+	public void addCounts(boolean[] values, int[] counts, int length) {
+		for (int i = 0; i < length; ++i) {
+			if (values[i]) ++counts[i];
+		}
+	}
+}
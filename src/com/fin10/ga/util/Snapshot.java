@@ -0,0 +1,130 @@
+package com.fin10.ga.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// the state of a run at the end of a generation: the packed genomes, the cached fitness of each individual,
+// the generation counter, the best fitness so far, the evaluations so far and the state of the random.
+// the evaluations are saved, so a budget of the evaluations is not started again by a resumed run.
+// it is reused by Checkpointer, so its arrays are grown only when the population becomes larger.
+//
+// the binary format is 'magic version generation best evaluations random[4] size words fitness[size] genomes[size*words]',
+// all big-endian. the random is the state words of FastRandom, so nothing is deserialized as an object.
+public final class Snapshot {
+
+	// "GASN"
+	private static final int MAGIC = 0x4741534E;
+	private static final int VERSION = 3;
+	// the largest snapshot which fits in a ByteBuffer.
+	static final long MAX_BYTES = Integer.MAX_VALUE - 8;
+
+	private int generation = 0;
+	private long best = 0;
+	private long evaluations = 0;
+	private final long[] random = new long[FastRandom.STATE_WORDS];
+	private int size = 0;
+	private int words = 0;
+	private long[] fitness = new long[0];
+	private long[] genomes = new long[0];
+
+	// it sets the header and prepares the arrays for 'size' genomes of 'words' words.
+	public void set(int generation, long best, long evaluations, FastRandom random, int size, int words) {
+		this.generation = generation;
+		this.best = best;
+		this.evaluations = evaluations;
+		random.getState(this.random);
+		this.size = size;
+		this.words = words;
+		if (fitness.length < size) fitness = new long[size];
+		if (genomes.length < (long) size * words) genomes = new long[Math.multiplyExact(size, words)];
+	}
+
+	public int getGeneration() {
+		return generation;
+	}
+
+	public long getBest() {
+		return best;
+	}
+
+	// the number of the evaluations from the start of the run, including the ones before it is resumed.
+	public long getEvaluations() {
+		return evaluations;
+	}
+
+	// it returns a new random which continues from the saved state.
+	public FastRandom getRandom() {
+		FastRandom result = new FastRandom(0);
+		result.setState(random);
+		return result;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getWords() {
+		return words;
+	}
+
+	// the fitness of the individual i is at i.
+	public long[] fitness() {
+		return fitness;
+	}
+
+	// the genome of the individual i is at [i * words, (i+1) * words).
+	public long[] genomes() {
+		return genomes;
+	}
+
+	long getByteSize() {
+		return 4 * 5 + 8 * 2 + 8 * (random.length + size + (long) size * words);
+	}
+
+	void write(ByteBuffer buffer) {
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(generation).putLong(best).putLong(evaluations);
+		for (long word : random) {
+			buffer.putLong(word);
+		}
+		buffer.putInt(size).putInt(words);
+		buffer.asLongBuffer().put(fitness, 0, size).put(genomes, 0, size * words);
+		buffer.position(buffer.position() + 8 * (size + size * words));
+	}
+
+	static Snapshot read(ByteBuffer buffer) throws IOException {
+		if (buffer.remaining() < 4 * 5 + 8 * (2 + FastRandom.STATE_WORDS) || buffer.getInt() != MAGIC) {
+			throw new IOException("not a snapshot");
+		}
+
+		int version = buffer.getInt();
+		if (version != VERSION) throw new IOException("unknown version: " + version);
+
+		Snapshot snapshot = new Snapshot();
+		snapshot.generation = buffer.getInt();
+		snapshot.best = buffer.getLong();
+		snapshot.evaluations = buffer.getLong();
+		if (snapshot.evaluations < 0) throw new IOException("invalid evaluations: " + snapshot.evaluations);
+		long state = 0;
+		for (int i = 0; i < snapshot.random.length; ++i) {
+			snapshot.random[i] = buffer.getLong();
+			state |= snapshot.random[i];
+		}
+		if (state == 0) throw new IOException("the state of the random is all zero");
+
+		snapshot.size = buffer.getInt();
+		snapshot.words = buffer.getInt();
+		if (snapshot.size < 0 || snapshot.words < 0) {
+			throw new IOException("invalid size: " + snapshot.size + " x " + snapshot.words);
+		}
+		// the arrays are allocated only after the file is known to have them.
+		if ((long) snapshot.size * (1L + snapshot.words) > buffer.remaining() / 8) {
+			throw new IOException("the snapshot is truncated");
+		}
+
+		snapshot.fitness = new long[snapshot.size];
+		snapshot.genomes = new long[snapshot.size * snapshot.words];
+
+		buffer.asLongBuffer().get(snapshot.fitness).get(snapshot.genomes);
+		return snapshot;
+	}
+}
@@ -0,0 +1,129 @@
+package com.fin10.ga.util;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+// it splits the input into the tokens which are separated by whitespaces, like Scanner without regular expressions.
+// the input is read in chunks from the channel, so a file of any size can be streamed with a fixed buffer.
+public final class Tokenizer implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final ReadableByteChannel mChannel;
+	private final byte[] mBytes = new byte[BUFFER_SIZE];
+	private final ByteBuffer mBuffer = ByteBuffer.wrap(mBytes);
+	private int mPosition = 0;
+	private int mLimit = 0;
+	private boolean mEof = false;
+
+	// the bytes of the current token which is read by next().
+	private byte[] mToken = new byte[64];
+
+	public Tokenizer(ReadableByteChannel channel) {
+		mChannel = channel;
+	}
+
+	public static Tokenizer open(String fileName) throws FileNotFoundException {
+		return new Tokenizer(new FileInputStream(fileName).getChannel());
+	}
+
+	public boolean hasNext() throws IOException {
+		return skipWhitespaces();
+	}
+
+	public int nextInt() throws IOException {
+		if (!skipWhitespaces()) throw new NoSuchElementException();
+
+		boolean negative = false;
+		if (mBytes[mPosition] == '-') {
+			negative = true;
+			++mPosition;
+		}
+
+		long value = 0;
+		int digits = 0;
+		while (fill()) {
+			byte b = mBytes[mPosition];
+			if (isWhitespace(b)) break;
+			if (b < '0' || b > '9') throw new InputMismatchException("not a digit: " + (char) b);
+
+			value = value * 10 + (b - '0');
+			if (value > (long) Integer.MAX_VALUE + 1) throw new InputMismatchException("out of range");
+
+			++digits;
+			++mPosition;
+		}
+
+		if (digits == 0) throw new InputMismatchException("no digits");
+		if (negative) value = -value;
+		if (value > Integer.MAX_VALUE) throw new InputMismatchException("out of range");
+
+		return (int) value;
+	}
+
+	public String next() throws IOException {
+		if (!skipWhitespaces()) throw new NoSuchElementException();
+
+		int length = 0;
+		while (fill()) {
+			byte b = mBytes[mPosition];
+			if (isWhitespace(b)) break;
+
+			if (length == mToken.length) {
+				byte[] token = new byte[length * 2];
+				System.arraycopy(mToken, 0, token, 0, length);
+				mToken = token;
+			}
+
+			mToken[length++] = b;
+			++mPosition;
+		}
+
+		return new String(mToken, 0, length, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void close() throws IOException {
+		mChannel.close();
+	}
+
+	// it returns false if there is no more token.
+	private boolean skipWhitespaces() throws IOException {
+		while (fill()) {
+			if (!isWhitespace(mBytes[mPosition])) return true;
+			++mPosition;
+		}
+
+		return false;
+	}
+
+	// it reads the next chunk if the buffer is consumed. it returns false at the end of the input.
+	private boolean fill() throws IOException {
+		while (mPosition >= mLimit) {
+			if (mEof) return false;
+
+			mBuffer.clear();
+			int read = mChannel.read(mBuffer);
+			if (read < 0) {
+				mEof = true;
+				return false;
+			}
+
+			mPosition = 0;
+			mLimit = read;
+		}
+
+		return true;
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+	}
+}
@@ -0,0 +1,109 @@
+package com.fin10.ga.util;
+
+// it finds the k largest keys by the quickselect over an index array, without sorting all keys.
+// the keys are not moved. indices[i] is the index of a key, and only the indices are reordered.
+// the partition is three-way, so a population of many equal fitness values doesn't make it quadratic.
+public final class TopK {
+
+	private TopK() {
+	}
+
+	// it fills indices[0, size) with 0, 1, ..., size-1.
+	public static void fill(int[] indices, int size) {
+		for (int i = 0; i < size; ++i) {
+			indices[i] = i;
+		}
+	}
+
+	// it moves the indices of the k largest keys to indices[0, k). the order in them is not defined.
+	public static void select(float[] keys, int[] indices, int size, int k) {
+		if (k <= 0 || k >= size) return;
+
+		int from = 0;
+		int to = size;
+		int target = k - 1;
+		while (to - from > 1) {
+			float pivot = median(keys[indices[from]], keys[indices[(from + to) >>> 1]], keys[indices[to - 1]]);
+
+			// [from, lt) > pivot, [lt, i) == pivot, [gt, to) < pivot
+			int lt = from;
+			int i = from;
+			int gt = to;
+			while (i < gt) {
+				float key = keys[indices[i]];
+				if (key > pivot) swap(indices, lt++, i++);
+				else if (key < pivot) swap(indices, i, --gt);
+				else ++i;
+			}
+
+			if (target < lt) to = lt;
+			else if (target >= gt) from = gt;
+			else return;
+		}
+	}
+
+	public static void select(int[] keys, int[] indices, int size, int k) {
+		if (k <= 0 || k >= size) return;
+
+		int from = 0;
+		int to = size;
+		int target = k - 1;
+		while (to - from > 1) {
+			int pivot = median(keys[indices[from]], keys[indices[(from + to) >>> 1]], keys[indices[to - 1]]);
+
+			int lt = from;
+			int i = from;
+			int gt = to;
+			while (i < gt) {
+				int key = keys[indices[i]];
+				if (key > pivot) swap(indices, lt++, i++);
+				else if (key < pivot) swap(indices, i, --gt);
+				else ++i;
+			}
+
+			if (target < lt) to = lt;
+			else if (target >= gt) from = gt;
+			else return;
+		}
+	}
+
+	// it sorts indices[0, k) in the descending order of the keys. it is for a small k, after select().
+	public static void sort(float[] keys, int[] indices, int k) {
+		for (int i = 1; i < k; ++i) {
+			int index = indices[i];
+			float key = keys[index];
+			int j = i - 1;
+			while (j >= 0 && keys[indices[j]] < key) {
+				indices[j + 1] = indices[j];
+				--j;
+			}
+			indices[j + 1] = index;
+		}
+	}
+
+	private static float median(float a, float b, float c) {
+		if (a > b) {
+			float tmp = a;
+			a = b;
+			b = tmp;
+		}
+
+		return c <= a ? a : c >= b ? b : c;
+	}
+
+	private static int median(int a, int b, int c) {
+		if (a > b) {
+			int tmp = a;
+			a = b;
+			b = tmp;
+		}
+
+		return c <= a ? a : c >= b ? b : c;
+	}
+
+	private static void swap(int[] indices, int i, int j) {
+		int tmp = indices[i];
+		indices[i] = indices[j];
+		indices[j] = tmp;
+	}
+}
@@ -0,0 +1,133 @@
+package com.fin10.ga.hw1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fin10.ga.engine.Engine;
+import com.fin10.ga.engine.Genome;
+import com.fin10.ga.termination.Progress;
+import com.fin10.ga.termination.Termination;
+import com.fin10.ga.termination.Terminations;
+
+// a run which is stopped at a checkpoint and resumed from it is the same as the run which is not stopped.
+public class KnapsackCheckpointTest {
+
+	private static final int ITEMS = 200;
+	private static final int SIZE = 30;
+	private static final long SEED = 42;
+	// it is a multiple of the checkpoint interval, so the stopped run writes its last generation.
+	private static final int STOP = 20;
+	private static final int GENERATIONS = 45;
+
+	@Rule
+	public final TemporaryFolder mFolder = new TemporaryFolder();
+
+	@Test
+	public void resumedRouletteIsUninterrupted() throws IOException {
+		assertResumedIsUninterrupted(true);
+	}
+
+	@Test
+	public void resumedTournamentIsUninterrupted() throws IOException {
+		assertResumedIsUninterrupted(false);
+	}
+
+	// the policy which stops at a generation and keeps the evaluations which it is checked with.
+	private static final class Recording implements Termination {
+
+		private final Termination mGenerations;
+		private long mFirst = -1;
+		private long mLast = -1;
+
+		private Recording(int generations) {
+			mGenerations = Terminations.generations(generations);
+		}
+
+		@Override
+		public boolean isDone(Progress progress) {
+			if (mFirst < 0) mFirst = progress.getEvaluations();
+			mLast = progress.getEvaluations();
+			return mGenerations.isDone(progress);
+		}
+	}
+
+	// the resumed run continues the evaluations of the checkpoint, so a budget of the evaluations is not restarted.
+	@Test
+	public void resumedEvaluationsContinue() throws IOException {
+		KnapsackInstance instance = createInstance(new Random(1));
+		String checkpoint = new File(mFolder.getRoot(), "run.checkpoint").getPath();
+
+		Knapsack stopped = new Knapsack(instance, SEED, 1);
+		Recording before = new Recording(STOP);
+		stopped.setTermination(before);
+		stopped.run(stopped.createEngine(SIZE, false), checkpoint);
+		stopped.shutdown();
+
+		Knapsack resumed = new Knapsack(instance, SEED, 1);
+		Recording after = new Recording(GENERATIONS);
+		resumed.setTermination(after);
+		resumed.run(resumed.createEngine(SIZE, false), checkpoint);
+		resumed.shutdown();
+
+		assertTrue(before.mLast >= SIZE);
+		assertEquals(before.mLast, after.mFirst);
+		assertTrue(after.mLast >= after.mFirst);
+	}
+
+	private void assertResumedIsUninterrupted(boolean roulette) throws IOException {
+		KnapsackInstance instance = createInstance(new Random(1));
+		String checkpoint = new File(mFolder.getRoot(), "run.checkpoint").getPath();
+
+		Knapsack uninterrupted = new Knapsack(instance, SEED, 1);
+		Engine expected = uninterrupted.createEngine(SIZE, roulette);
+		uninterrupted.setTermination(Terminations.generations(GENERATIONS));
+		int expectedBest = uninterrupted.run(expected, null);
+		uninterrupted.shutdown();
+
+		Knapsack stopped = new Knapsack(instance, SEED, 1);
+		stopped.setTermination(Terminations.generations(STOP));
+		stopped.run(stopped.createEngine(SIZE, roulette), checkpoint);
+		stopped.shutdown();
+
+		// the resumed run has another seed, and it is replaced by the random of the checkpoint.
+		Knapsack resumed = new Knapsack(instance, SEED + 1, 1);
+		Engine actual = resumed.createEngine(SIZE, roulette);
+		resumed.setTermination(Terminations.generations(GENERATIONS));
+		int actualBest = resumed.run(actual, checkpoint);
+		resumed.shutdown();
+
+		assertEquals(expectedBest, actualBest);
+		assertEquals(toString(expected.getPopulation()), toString(actual.getPopulation()));
+	}
+
+	private static KnapsackInstance createInstance(Random random) {
+		int[] weights = new int[ITEMS];
+		int[] profits = new int[ITEMS];
+		int total = 0;
+		for (int i = 0; i < ITEMS; ++i) {
+			weights[i] = 1 + random.nextInt(100);
+			profits[i] = 1 + random.nextInt(100);
+			total += weights[i];
+		}
+
+		return new KnapsackInstance(total / 3, weights, profits);
+	}
+
+	private static String toString(List<Genome> genomes) {
+		StringBuilder builder = new StringBuilder();
+		for (Genome genome : genomes) {
+			builder.append(genome).append('\n');
+		}
+
+		return builder.toString();
+	}
+}
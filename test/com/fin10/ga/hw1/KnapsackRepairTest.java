@@ -0,0 +1,185 @@
+package com.fin10.ga.hw1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.fin10.ga.engine.Genome;
+
+public class KnapsackRepairTest {
+
+	private static final int TRIALS = 300;
+	private static final int MAX_ITEMS = 14;
+	private static final int LARGE_CELLS = 1 << 20;
+
+	private static final class Instance {
+
+		private final int capacity;
+		private final int[] weights;
+		private final int[] profits;
+		private final KnapsackFitness fitness;
+
+		// the items may have no weight or no profit, and the capacity may hold none or all of them.
+		private Instance(Random random) {
+			int items = 1 + random.nextInt(MAX_ITEMS);
+			weights = new int[items];
+			profits = new int[items];
+			int total = 0;
+			for (int i = 0; i < items; ++i) {
+				weights[i] = random.nextInt(30);
+				profits[i] = random.nextInt(30);
+				total += weights[i];
+			}
+			capacity = random.nextInt(total + 1);
+			fitness = new KnapsackFitness(new KnapsackInstance(capacity, weights, profits));
+		}
+
+		private int bruteForce() {
+			int best = 0;
+			for (int set = 0; set < 1 << weights.length; ++set) {
+				int weight = 0;
+				int profit = 0;
+				for (int i = 0; i < weights.length; ++i) {
+					if ((set & (1 << i)) != 0) {
+						weight += weights[i];
+						profit += profits[i];
+					}
+				}
+				if (weight <= capacity) best = Math.max(best, profit);
+			}
+
+			return best;
+		}
+
+		private KnapsackRepair createRepair() {
+			return new KnapsackRepair(capacity, weights, profits);
+		}
+
+		private Genome createGenome() {
+			return new Genome(weights.length, fitness);
+		}
+
+		// the state of the weight and the profit is the one of the genes, and it fits in the capacity.
+		private void assertFeasible(String message, Genome genome) {
+			assertTrue(message, genome.isEvaluated());
+			assertEquals(message, fitness.getState(genome), genome.getState());
+			assertTrue(message, KnapsackFitness.getWeight(genome.getState()) <= capacity);
+		}
+	}
+
+	// the whole instance fits in the table, so the core is every item and the solution is optimal.
+	@Test
+	public void solveCoreMatchesBruteForce() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < TRIALS; ++trial) {
+			Instance instance = new Instance(random);
+			Genome genome = instance.createGenome();
+			int profit = instance.createRepair().solveCore(genome, LARGE_CELLS);
+
+			assertEquals("trial " + trial, instance.bruteForce(), profit);
+			instance.assertFeasible("trial " + trial, genome);
+		}
+	}
+
+	// a small table solves only a part of the instance, so it is feasible and at most optimal.
+	@Test
+	public void solveCoreWithSmallTableIsFeasible() {
+		Random random = new Random(2);
+		for (int trial = 0; trial < TRIALS; ++trial) {
+			Instance instance = new Instance(random);
+			KnapsackRepair repair = instance.createRepair();
+			Genome genome = instance.createGenome();
+			int optimum = instance.bruteForce();
+
+			for (int cells : new int[] { 0, 40, 400 }) {
+				int profit = repair.solveCore(genome, cells);
+				assertTrue("trial " + trial + ", cells " + cells, profit <= optimum);
+				assertEquals("trial " + trial + ", cells " + cells, profit, KnapsackFitness.getProfit(genome.getState()));
+				instance.assertFeasible("trial " + trial + ", cells " + cells, genome);
+			}
+		}
+	}
+
+	// the larger core never loses the profit of a smaller one.
+	@Test
+	public void largerCoreIsNotWorse() {
+		Random random = new Random(3);
+		for (int trial = 0; trial < TRIALS; ++trial) {
+			Instance instance = new Instance(random);
+			KnapsackRepair repair = instance.createRepair();
+			Genome genome = instance.createGenome();
+
+			int greedy = repair.solveCore(genome, 0);
+			assertTrue("trial " + trial, repair.solveCore(genome, LARGE_CELLS) >= greedy);
+		}
+	}
+
+	@Test
+	public void repairFitsAndCountsInversions() {
+		Random random = new Random(4);
+		for (int trial = 0; trial < TRIALS; ++trial) {
+			Instance instance = new Instance(random);
+			KnapsackRepair repair = instance.createRepair();
+			Genome genome = instance.createGenome();
+			genome.randomize(new Random(trial));
+			evaluate(instance, genome);
+			Genome before = instance.createGenome();
+			before.copyFrom(genome);
+
+			int changes = repair.repair(genome);
+			instance.assertFeasible("trial " + trial, genome);
+			// an item may be removed and then added again, so each changed gene is inverted an odd number of times.
+			int distance = distance(before, genome);
+			assertTrue("trial " + trial, changes >= distance && (changes - distance) % 2 == 0);
+			// no item fits in the space which is left by the repair.
+			assertEquals("trial " + trial, 0, repair.improve(genome));
+		}
+	}
+
+	// a genome which fits is only improved, so no item is removed.
+	@Test
+	public void repairKeepsFittingItems() {
+		Random random = new Random(5);
+		for (int trial = 0; trial < TRIALS; ++trial) {
+			Instance instance = new Instance(random);
+			Genome genome = instance.createGenome();
+			for (int i = 0; i < instance.weights.length; ++i) {
+				genome.set(i, random.nextBoolean());
+			}
+			evaluate(instance, genome);
+			if (KnapsackFitness.getWeight(genome.getState()) > instance.capacity) continue;
+
+			Genome before = instance.createGenome();
+			before.copyFrom(genome);
+			instance.createRepair().repair(genome);
+			for (int i = 0; i < instance.weights.length; ++i) {
+				if (before.get(i)) assertTrue("trial " + trial, genome.get(i));
+			}
+		}
+	}
+
+	// the weight and the profit are summed item by item, apart from the kernels of the fitness.
+	private static void evaluate(Instance instance, Genome genome) {
+		int weight = 0;
+		int profit = 0;
+		for (int i = 0; i < instance.weights.length; ++i) {
+			if (genome.get(i)) {
+				weight += instance.weights[i];
+				profit += instance.profits[i];
+			}
+		}
+		genome.setState(KnapsackFitness.pack(weight, profit));
+	}
+
+	private static int distance(Genome a, Genome b) {
+		int distance = 0;
+		for (int i = 0; i < a.length(); ++i) {
+			if (a.get(i) != b.get(i)) ++distance;
+		}
+
+		return distance;
+	}
+}
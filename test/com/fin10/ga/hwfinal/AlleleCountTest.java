@@ -0,0 +1,120 @@
+package com.fin10.ga.hwfinal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.fin10.ga.engine.Engine;
+import com.fin10.ga.engine.Genome;
+import com.fin10.ga.hwfinal.AllergyProblem.Person;
+import com.fin10.ga.util.AlleleCounter;
+import com.fin10.ga.util.ParallelEvaluator;
+
+// the allele counts which the engine keeps are the same as the counts of the population from scratch.
+public class AlleleCountTest {
+
+	private static final int PEOPLE = 80;
+	// more than two words, and not a multiple of the word size.
+	private static final int FOODS = 150;
+	private static final int SIZE = 60;
+	private static final int GENERATIONS = 15;
+
+	private final ParallelEvaluator mEvaluator = new ParallelEvaluator(4);
+
+	@After
+	public void tearDown() {
+		mEvaluator.shutdown();
+	}
+
+	@Test
+	public void generationsKeepCounts() {
+		Engine engine = createProblem(new Random(1)).createEngine(SIZE, 1, mEvaluator);
+		engine.generate();
+		assertCounts("generated", engine);
+
+		for (int generation = 0; generation < GENERATIONS; ++generation) {
+			engine.step();
+			assertCounts("generation " + generation, engine);
+		}
+	}
+
+	// the repair and the local search change the genes after the mutation, and the seeding repairs the population.
+	@Test
+	public void memeticGenerationsKeepCounts() {
+		AllergyProblem problem = createProblem(new Random(4));
+		problem.setMemetic();
+		Engine engine = problem.createEngine(SIZE, 4, mEvaluator);
+		engine.generate();
+		assertCounts("generated", engine);
+
+		for (int generation = 0; generation < GENERATIONS; ++generation) {
+			engine.step();
+			assertCounts("generation " + generation, engine);
+		}
+	}
+
+	// only the replaced genomes of the steady-state steps are counted again.
+	@Test
+	public void steadyStepsKeepCounts() {
+		Engine engine = createProblem(new Random(5)).createEngine(SIZE, 5, mEvaluator);
+		engine.generate();
+		for (int step = 0; step < SIZE; ++step) {
+			engine.steadyStep(step % 2 == 0 ? Engine.Replacement.WORST : Engine.Replacement.TOURNAMENT);
+		}
+
+		assertCounts("stepped", engine);
+	}
+
+	@Test
+	public void migrationKeepsCounts() {
+		Engine engine = createProblem(new Random(2)).createEngine(SIZE, 2, mEvaluator);
+		Engine other = createProblem(new Random(3)).createEngine(SIZE, 3, mEvaluator);
+		engine.generate();
+		other.generate();
+		for (int i = 0; i < SIZE; i += 7) {
+			engine.migrate(i, other.getPopulation().get(i));
+		}
+
+		assertCounts("migrated", engine);
+	}
+
+	private static void assertCounts(String message, Engine engine) {
+		List<Genome> population = engine.getPopulation();
+		int[] ones = new int[FOODS];
+		for (Genome genome : population) {
+			for (int i = 0; i < FOODS; ++i) {
+				if (genome.get(i)) ++ones[i];
+			}
+		}
+
+		AlleleCounter alleles = engine.getAlleleCounter();
+		assertEquals(message, population.size(), alleles.getSize());
+		for (int i = 0; i < FOODS; ++i) {
+			assertEquals(message + ", locus " + i, ones[i], alleles.getOnes(i));
+		}
+	}
+
+	// each person can eat a few foods, so many genomes are infeasible and repaired.
+	private AllergyProblem createProblem(Random random) {
+		String[] names = new String[PEOPLE];
+		for (int j = 0; j < PEOPLE; ++j) {
+			names[j] = "p" + j;
+		}
+
+		AllergyProblem problem = new AllergyProblem(names, FOODS, random.nextLong(), mEvaluator);
+		for (String name : names) {
+			Person person = problem.getPerson(name);
+			person.setFood(random.nextInt(FOODS), true);
+			for (int i = 0; i < FOODS; ++i) {
+				if (random.nextFloat() < 0.02f) person.setFood(i, true);
+			}
+		}
+		problem.buildIndex();
+
+		return problem;
+	}
+}
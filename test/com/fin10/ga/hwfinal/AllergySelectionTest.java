@@ -0,0 +1,118 @@
+package com.fin10.ga.hwfinal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.fin10.ga.engine.BitFlipMutator;
+import com.fin10.ga.engine.Engine;
+import com.fin10.ga.engine.Genome;
+import com.fin10.ga.engine.PointCrossover;
+import com.fin10.ga.hwfinal.AllergyProblem.Person;
+import com.fin10.ga.util.ParallelEvaluator;
+
+// the fitness is the negative number of the served foods, so the higher fitness must survive the elites and the
+// tournament replacement.
+public class AllergySelectionTest {
+
+	private static final int PEOPLE = 30;
+	private static final int FOODS = 40;
+	private static final int SIZE = 101;
+	private static final int TRIALS = 20;
+
+	private final ParallelEvaluator mEvaluator = new ParallelEvaluator(3);
+
+	@After
+	public void tearDown() {
+		mEvaluator.shutdown();
+	}
+
+	@Test
+	public void highestFitnessIsReserved() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < TRIALS; ++trial) {
+			Engine engine = createEngine(createProblem(random), trial);
+			engine.generate();
+			double[] fitness = getFitness(engine.getPopulation(), SIZE);
+
+			engine.step();
+			int elites = (int) (SIZE * AllergyProblem.TAU);
+			Arrays.sort(fitness);
+			double[] expected = Arrays.copyOfRange(fitness, SIZE - elites, SIZE);
+			double[] actual = getFitness(engine.getPopulation(), elites);
+			Arrays.sort(actual);
+			assertArrayEquals("trial " + trial, expected, actual, 0);
+		}
+	}
+
+	// the slot elites+i is the winner of the genome i and a random opponent, so it is never worse than i.
+	@Test
+	public void tournamentKeepsHigherFitness() {
+		Random random = new Random(2);
+		for (int trial = 0; trial < TRIALS; ++trial) {
+			Engine engine = createEngine(createProblem(random), trial);
+			engine.generate();
+			double[] fitness = getFitness(engine.getPopulation(), SIZE);
+			double best = -Double.MAX_VALUE;
+			for (double value : fitness) {
+				best = Math.max(best, value);
+			}
+
+			engine.step();
+			int elites = (int) (SIZE * AllergyProblem.TAU);
+			List<Genome> next = engine.getPopulation();
+			double nextBest = -Double.MAX_VALUE;
+			for (int i = 0; i < SIZE; ++i) {
+				if (i >= elites) {
+					assertTrue("trial " + trial + ", slot " + i, next.get(i).getFitness() >= fitness[i - elites]);
+				}
+				nextBest = Math.max(nextBest, next.get(i).getFitness());
+			}
+			assertEquals("trial " + trial, best, nextBest, 0);
+		}
+	}
+
+	// the offsprings are the current genomes as they are, so only the selection is tested.
+	private Engine createEngine(AllergyProblem problem, long seed) {
+		Engine engine = problem.createEngine(SIZE, seed, mEvaluator);
+		engine.setCrossover(new PointCrossover<>(Genome.GENES, AllergyProblem.CROSSOVER_POINTS), 0);
+		engine.setMutator(new BitFlipMutator<>(Genome.GENES, 0));
+
+		return engine;
+	}
+
+	private static double[] getFitness(List<Genome> population, int count) {
+		double[] fitness = new double[count];
+		for (int i = 0; i < count; ++i) {
+			fitness[i] = population.get(i).getFitness();
+		}
+
+		return fitness;
+	}
+
+	// each person can eat a third of the foods, so the random genomes have many different fitness.
+	private AllergyProblem createProblem(Random random) {
+		String[] names = new String[PEOPLE];
+		for (int j = 0; j < PEOPLE; ++j) {
+			names[j] = "p" + j;
+		}
+
+		AllergyProblem problem = new AllergyProblem(names, FOODS, random.nextLong(), mEvaluator);
+		for (String name : names) {
+			Person person = problem.getPerson(name);
+			for (int i = 0; i < FOODS; ++i) {
+				if (random.nextInt(3) == 0) person.setFood(i, true);
+			}
+		}
+		problem.buildIndex();
+
+		return problem;
+	}
+}
@@ -0,0 +1,87 @@
+package com.fin10.ga.hwfinal;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.fin10.ga.util.ParallelEvaluator;
+import com.fin10.ga.util.Tokenizer;
+
+public class CaseReaderTest {
+
+	// two cases. in the first, alice can eat the foods 0 and 1, and bob the foods 1 and 2.
+	private static final String INPUT = "2\n"
+			+ "2 3\nalice bob\n1 alice\n2 alice bob\n1 bob\n"
+			+ "1 1\ncarol\n1 carol\n";
+
+	private final ParallelEvaluator mEvaluator = new ParallelEvaluator(1);
+
+	@After
+	public void tearDown() {
+		mEvaluator.shutdown();
+	}
+
+	@Test
+	public void casesAreReadInOrder() throws IOException {
+		try (CaseReader reader = reader(INPUT)) {
+			assertTrue(reader.hasNext());
+			AllergyProblem first = reader.next();
+			assertTrue(first.getPerson("alice").canEat(0));
+			assertTrue(first.getPerson("alice").canEat(1));
+			assertFalse(first.getPerson("alice").canEat(2));
+			assertFalse(first.getPerson("bob").canEat(0));
+			assertTrue(first.getPerson("bob").canEat(1));
+			assertTrue(first.getPerson("bob").canEat(2));
+
+			assertTrue(reader.hasNext());
+			AllergyProblem second = reader.next();
+			assertTrue(second.getPerson("carol").canEat(0));
+			assertNull(second.getPerson("alice"));
+
+			assertFalse(reader.hasNext());
+		}
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void nextAfterLastCaseFails() throws IOException {
+		try (CaseReader reader = reader("1\n1 1\ncarol\n1 carol\n")) {
+			reader.next();
+			reader.next();
+		}
+	}
+
+	@Test
+	public void zeroCasesHaveNoNext() throws IOException {
+		try (CaseReader reader = reader(" 0 \n")) {
+			assertFalse(reader.hasNext());
+		}
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void emptyInputIsRejected() throws IOException {
+		reader(" \n\t ").close();
+	}
+
+	// the input ends in the middle of the second case.
+	@Test(expected = NoSuchElementException.class)
+	public void truncatedCaseIsRejected() throws IOException {
+		try (CaseReader reader = reader(INPUT.substring(0, INPUT.indexOf("carol") + 6))) {
+			reader.next();
+			reader.next();
+		}
+	}
+
+	private CaseReader reader(String input) throws IOException {
+		byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+		return new CaseReader(new Tokenizer(Channels.newChannel(new ByteArrayInputStream(bytes))), 1, mEvaluator);
+	}
+}
@@ -0,0 +1,129 @@
+package com.fin10.ga.hwfinal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.fin10.ga.hwfinal.AllergyProblem.Person;
+
+public class CoverageIndexTest {
+
+	// more than two words of people, so the bitsets span several words.
+	private static final int PEOPLE = 150;
+	private static final int FOODS = 40;
+
+	@Test
+	public void listsMatchPeople() {
+		List<Person> people = createPeople(PEOPLE, FOODS, 0.1f, new Random(1));
+		CoverageIndex index = new CoverageIndex(people, FOODS);
+		assertEquals(PEOPLE, index.getPeople());
+		assertEquals(FOODS, index.getFoods());
+
+		for (int i = 0; i < FOODS; ++i) {
+			int previous = -1;
+			int count = 0;
+			for (int e = index.eatersFrom(i); e < index.eatersFrom(i + 1); ++e) {
+				int person = index.eaters()[e];
+				assertTrue(people.get(person).canEat(i));
+				assertTrue("the eaters are sorted", person > previous);
+				previous = person;
+				++count;
+			}
+			assertEquals(countEaters(people, i), count);
+		}
+
+		for (int j = 0; j < PEOPLE; ++j) {
+			int previous = -1;
+			int count = 0;
+			for (int e = index.ediblesFrom(j); e < index.ediblesFrom(j + 1); ++e) {
+				int food = index.edibles()[e];
+				assertTrue(people.get(j).canEat(food));
+				assertTrue("the edibles are sorted", food > previous);
+				previous = food;
+				++count;
+			}
+			assertEquals(countEdibles(people.get(j), FOODS), count);
+		}
+	}
+
+	@Test
+	public void coverMatchesPeople() {
+		Random random = new Random(2);
+		List<Person> people = createPeople(PEOPLE, FOODS, 0.05f, random);
+		CoverageIndex index = new CoverageIndex(people, FOODS);
+		for (int trial = 0; trial < 500; ++trial) {
+			boolean[] served = new boolean[FOODS];
+			long[] table = index.newTable();
+			for (int i = 0; i < FOODS; ++i) {
+				if (random.nextInt(4) == 0) {
+					served[i] = true;
+					index.cover(i, table);
+				}
+			}
+
+			int covered = 0;
+			for (Person person : people) {
+				for (int i = 0; i < FOODS; ++i) {
+					if (served[i] && person.canEat(i)) {
+						++covered;
+						break;
+					}
+				}
+			}
+
+			assertEquals("trial " + trial, covered, index.countCovered(table));
+			assertEquals("trial " + trial, covered == PEOPLE, index.isCovered(table));
+		}
+	}
+
+	@Test
+	public void allFoodsCoverEveryoneWhoCanEat() {
+		List<Person> people = createPeople(PEOPLE, FOODS, 0.3f, new Random(3));
+		CoverageIndex index = new CoverageIndex(people, FOODS);
+		long[] table = index.newTable();
+		for (int i = 0; i < FOODS; ++i) {
+			index.cover(i, table);
+		}
+
+		assertTrue(index.isCovered(table));
+		assertEquals(PEOPLE, index.countCovered(table));
+	}
+
+	// each person can eat a random food and the others in the density.
+	static List<Person> createPeople(int size, int foods, float density, Random random) {
+		List<Person> people = new ArrayList<>(size);
+		for (int j = 0; j < size; ++j) {
+			Person person = new Person("p" + j, foods);
+			person.setFood(random.nextInt(foods), true);
+			for (int i = 0; i < foods; ++i) {
+				if (random.nextFloat() < density) person.setFood(i, true);
+			}
+			people.add(person);
+		}
+
+		return people;
+	}
+
+	private static int countEaters(List<Person> people, int food) {
+		int count = 0;
+		for (Person person : people) {
+			if (person.canEat(food)) ++count;
+		}
+
+		return count;
+	}
+
+	private static int countEdibles(Person person, int foods) {
+		int count = 0;
+		for (int i = 0; i < foods; ++i) {
+			if (person.canEat(i)) ++count;
+		}
+
+		return count;
+	}
+}
@@ -0,0 +1,139 @@
+package com.fin10.ga.hwfinal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.fin10.ga.engine.Genome;
+import com.fin10.ga.hwfinal.AllergyProblem.Person;
+
+public class SetCoverTest {
+
+	private static final int TRIALS = 300;
+	// the optimum is found by the brute force over all sets of the foods.
+	private static final int MAX_FOODS = 12;
+
+	private static final class Instance {
+
+		private final List<Person> people;
+		private final int foods;
+		private final SetCover cover;
+
+		private Instance(Random random) {
+			foods = 1 + random.nextInt(MAX_FOODS);
+			people = CoverageIndexTest.createPeople(1 + random.nextInt(70), foods, random.nextFloat() * 0.3f, random);
+			cover = new SetCover(new CoverageIndex(people, foods));
+		}
+
+		private boolean isCovered(Genome genome) {
+			for (Person person : people) {
+				if (getCount(person, genome) == 0) return false;
+			}
+
+			return true;
+		}
+
+		private int getCount(Person person, Genome genome) {
+			int count = 0;
+			for (int i = 0; i < foods; ++i) {
+				if (genome.get(i) && person.canEat(i)) ++count;
+			}
+
+			return count;
+		}
+
+		private int bruteForce() {
+			int best = foods;
+			Genome genome = new Genome(foods);
+			for (int set = 1; set < 1 << foods; ++set) {
+				for (int i = 0; i < foods; ++i) {
+					genome.set(i, (set & (1 << i)) != 0);
+				}
+				if (isCovered(genome)) best = Math.min(best, Integer.bitCount(set));
+			}
+
+			return best;
+		}
+
+		// the repaired foods cover everyone, the fitness is the number of them, and none of them is redundant.
+		private void assertRepaired(String message, Genome genome, int fitness) {
+			assertTrue(message, isCovered(genome));
+			assertEquals(message, genome.countOnes(), fitness);
+			for (int i = 0; i < foods; ++i) {
+				if (!genome.get(i)) continue;
+
+				boolean needed = false;
+				for (Person person : people) {
+					if (person.canEat(i) && getCount(person, genome) == 1) needed = true;
+				}
+				assertTrue(message + ", food " + i + " is redundant", needed);
+			}
+		}
+	}
+
+	@Test
+	public void repairCoversWithoutRedundantFoods() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < TRIALS; ++trial) {
+			Instance instance = new Instance(random);
+			Genome genome = randomGenome(instance.foods, random);
+			int fitness = instance.cover.repair(genome, random);
+
+			instance.assertRepaired("trial " + trial, genome, fitness);
+			assertTrue("trial " + trial, fitness >= instance.bruteForce());
+		}
+	}
+
+	@Test
+	public void improveIsNotWorse() {
+		Random random = new Random(2);
+		for (int trial = 0; trial < TRIALS; ++trial) {
+			Instance instance = new Instance(random);
+			Genome genome = randomGenome(instance.foods, random);
+			int repaired = instance.cover.repair(genome, random);
+			int improved = instance.cover.improve(genome, repaired, random);
+
+			instance.assertRepaired("trial " + trial, genome, improved);
+			assertTrue("trial " + trial, improved <= repaired);
+			assertTrue("trial " + trial, improved >= instance.bruteForce());
+		}
+	}
+
+	// the person who can eat nothing is never covered, and the fitness is larger than every cover.
+	@Test
+	public void uncoverableIsWorst() {
+		Random random = new Random(4);
+		int foods = 5;
+		List<Person> people = CoverageIndexTest.createPeople(10, foods, 0.3f, random);
+		people.add(new Person("nobody", foods));
+		SetCover cover = new SetCover(new CoverageIndex(people, foods));
+
+		Genome genome = randomGenome(foods, random);
+		assertEquals(foods + 1, cover.repair(genome, random));
+		assertEquals(foods + 1, cover.improve(genome, foods + 1, random));
+	}
+
+	@Test
+	public void evaluationsAreCounted() {
+		Instance instance = new Instance(new Random(5));
+		Random random = new Random(6);
+		Genome genome = randomGenome(instance.foods, random);
+		int fitness = instance.cover.repair(genome, random);
+		instance.cover.improve(genome, fitness, random);
+
+		assertEquals(2, instance.cover.getEvaluations());
+	}
+
+	private static Genome randomGenome(int foods, Random random) {
+		Genome genome = new Genome(foods);
+		for (int i = 0; i < foods; ++i) {
+			genome.set(i, random.nextInt(3) == 0);
+		}
+
+		return genome;
+	}
+}
@@ -0,0 +1,226 @@
+package com.fin10.ga.termination;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TerminationsTest {
+
+	// the diversity source which counts how many times the diversity is calculated.
+	private static final class Diversity implements Progress.DiversitySource {
+
+		private double mDiversity = 1;
+		private int mCalls = 0;
+
+		@Override
+		public double getDiversity() {
+			++mCalls;
+			return mDiversity;
+		}
+	}
+
+	// the policy which counts how many times it is checked.
+	private static final class Fixed implements Termination {
+
+		private final boolean mDone;
+		private int mCalls = 0;
+
+		private Fixed(boolean done) {
+			mDone = done;
+		}
+
+		@Override
+		public boolean isDone(Progress progress) {
+			++mCalls;
+			return mDone;
+		}
+	}
+
+	@Test
+	public void generationsStopsAtCount() {
+		Progress progress = start(false, new Diversity(), 0);
+		Termination termination = Terminations.generations(3);
+		for (int generation = 0; generation < 3; ++generation) {
+			progress.update(generation, 0, 0);
+			assertFalse(termination.isDone(progress));
+		}
+
+		progress.update(3, 0, 0);
+		assertTrue(termination.isDone(progress));
+	}
+
+	@Test
+	public void stallCountsGenerationsWithoutImprovement() {
+		Termination termination = Terminations.stall(2);
+		Progress progress = start(false, new Diversity(), 0);
+		progress.update(0, 10, 0);
+		progress.update(1, 12, 0);
+		assertEquals(0, progress.getStallGenerations());
+		// an equal best is not an improvement.
+		progress.update(2, 12, 0);
+		assertFalse(termination.isDone(progress));
+		progress.update(3, 11, 0);
+		assertTrue(termination.isDone(progress));
+		assertEquals(1, progress.getBestGeneration());
+
+		progress.update(4, 13, 0);
+		assertFalse(termination.isDone(progress));
+		assertEquals(13, progress.getBest(), 0);
+	}
+
+	@Test
+	public void stallOfMinimizingCountsLowerAsBetter() {
+		Termination termination = Terminations.stall(2);
+		Progress progress = start(true, new Diversity(), 0);
+		progress.update(0, 10, 0);
+		progress.update(1, 12, 0);
+		assertEquals(1, progress.getStallGenerations());
+		progress.update(2, 9, 0);
+		assertEquals(0, progress.getStallGenerations());
+		progress.update(3, 9, 0);
+		progress.update(4, 10, 0);
+		assertTrue(termination.isDone(progress));
+		assertEquals(9, progress.getBest(), 0);
+	}
+
+	// a resumed run counts the stall from the generation it is resumed from.
+	@Test
+	public void stallStartsAtResumedGeneration() {
+		Progress progress = start(false, new Diversity(), 20);
+		progress.update(20, 5, 0);
+		progress.update(21, 5, 0);
+		assertEquals(1, progress.getStallGenerations());
+		assertFalse(Terminations.stall(2).isDone(progress));
+	}
+
+	@Test
+	public void targetIsReached() {
+		Progress maximizing = start(false, new Diversity(), 0);
+		assertFalse("no best yet", Terminations.target(0).isDone(maximizing));
+		maximizing.update(0, 99, 0);
+		assertFalse(Terminations.target(100).isDone(maximizing));
+		maximizing.update(1, 100, 0);
+		assertTrue(Terminations.target(100).isDone(maximizing));
+
+		Progress minimizing = start(true, new Diversity(), 0);
+		minimizing.update(0, 2, 0);
+		assertFalse(Terminations.target(1).isDone(minimizing));
+		minimizing.update(1, 1, 0);
+		assertTrue(Terminations.target(1).isDone(minimizing));
+	}
+
+	@Test
+	public void evaluationsStopsAtBudget() {
+		Progress progress = start(false, new Diversity(), 0);
+		progress.update(1, 0, 999);
+		assertFalse(Terminations.evaluations(1000).isDone(progress));
+		progress.update(2, 0, 1000);
+		assertTrue(Terminations.evaluations(1000).isDone(progress));
+	}
+
+	@Test
+	public void timeLimitStopsAfterDuration() {
+		Progress progress = start(false, new Diversity(), 0);
+		assertFalse(Terminations.timeLimit(1, TimeUnit.HOURS).isDone(progress));
+		assertTrue(Terminations.timeLimit(0, TimeUnit.NANOSECONDS).isDone(progress));
+	}
+
+	@Test
+	public void diversityFloorStopsBelowFloor() {
+		Diversity diversity = new Diversity();
+		Termination termination = Terminations.diversityFloor(0.5);
+		Progress progress = start(false, diversity, 0);
+		progress.update(1, 0, 0);
+		diversity.mDiversity = 0.5;
+		assertFalse(termination.isDone(progress));
+		progress.update(2, 0, 0);
+		diversity.mDiversity = 0.49;
+		assertTrue(termination.isDone(progress));
+	}
+
+	// the seeded or resumed population may start below the floor, so it is checked only after a generation of the run.
+	@Test
+	public void diversityFloorIsNotCheckedAtStart() {
+		Diversity diversity = new Diversity();
+		diversity.mDiversity = 0;
+		Termination termination = Terminations.diversityFloor(0.5);
+		Progress progress = start(false, diversity, 5);
+		progress.update(5, 0, 0);
+		assertFalse(termination.isDone(progress));
+		assertEquals(0, diversity.mCalls);
+
+		progress.update(6, 0, 0);
+		assertTrue(termination.isDone(progress));
+	}
+
+	// the diversity needs a pass over the population, so it is calculated once per generation for all policies.
+	@Test
+	public void diversityIsCalculatedOncePerGeneration() {
+		Diversity diversity = new Diversity();
+		Termination termination = Terminations.allOf(Terminations.diversityFloor(2), Terminations.diversityFloor(3));
+		Progress progress = start(false, diversity, 0);
+		progress.update(1, 0, 0);
+		termination.isDone(progress);
+		termination.isDone(progress);
+		assertEquals(1, diversity.mCalls);
+
+		progress.update(2, 0, 0);
+		termination.isDone(progress);
+		assertEquals(2, diversity.mCalls);
+	}
+
+	// the policies are checked in order until one of them stops.
+	@Test
+	public void anyOfStopsAtFirstDone() {
+		Progress progress = start(false, new Diversity(), 0);
+		Fixed first = new Fixed(false);
+		Fixed second = new Fixed(true);
+		Fixed third = new Fixed(true);
+		assertTrue(Terminations.anyOf(first, second, third).isDone(progress));
+		assertEquals(1, first.mCalls);
+		assertEquals(1, second.mCalls);
+		assertEquals(0, third.mCalls);
+
+		assertFalse(Terminations.anyOf(new Fixed(false), new Fixed(false)).isDone(progress));
+		assertFalse(Terminations.anyOf().isDone(progress));
+	}
+
+	@Test
+	public void allOfStopsWhenAllDone() {
+		Progress progress = start(false, new Diversity(), 0);
+		Fixed first = new Fixed(false);
+		Fixed second = new Fixed(true);
+		assertFalse(Terminations.allOf(first, second).isDone(progress));
+		assertEquals(0, second.mCalls);
+
+		assertFalse(Terminations.allOf(new Fixed(true), new Fixed(false)).isDone(progress));
+		assertTrue(Terminations.allOf(new Fixed(true), new Fixed(true)).isDone(progress));
+		assertTrue(Terminations.allOf().isDone(progress));
+	}
+
+	// the default policies of the solvers, e.g. the generations or the stall, whichever comes first.
+	@Test
+	public void compositionsNest() {
+		Termination termination = Terminations.anyOf(Terminations.generations(10),
+				Terminations.allOf(Terminations.stall(3), Terminations.target(5)));
+		Progress progress = start(false, new Diversity(), 0);
+		progress.update(0, 4, 0);
+		progress.update(4, 4, 0);
+		assertFalse("stalled below the target", termination.isDone(progress));
+		progress.update(5, 6, 0);
+		progress.update(8, 6, 0);
+		assertTrue("stalled at the target", termination.isDone(progress));
+		progress.update(10, 7, 0);
+		assertTrue(termination.isDone(progress));
+	}
+
+	private static Progress start(boolean minimize, Diversity diversity, int generation) {
+		Progress progress = new Progress(minimize, diversity);
+		progress.start(generation);
+		return progress;
+	}
+}
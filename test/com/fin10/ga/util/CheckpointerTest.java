@@ -0,0 +1,152 @@
+package com.fin10.ga.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CheckpointerTest {
+
+	private static final int SIZE = 5;
+	private static final int WORDS = 3;
+
+	@Rule
+	public final TemporaryFolder mFolder = new TemporaryFolder();
+
+	@Test
+	public void snapshotIsRestored() throws IOException {
+		String fileName = write(new FastRandom(7));
+		Snapshot snapshot = Checkpointer.read(fileName);
+
+		assertEquals(12, snapshot.getGeneration());
+		assertEquals(-34, snapshot.getBest());
+		assertEquals(5L << 33, snapshot.getEvaluations());
+		assertEquals(SIZE, snapshot.size());
+		assertEquals(WORDS, snapshot.getWords());
+		assertArrayEquals(fitness(), Arrays.copyOf(snapshot.fitness(), SIZE));
+		assertArrayEquals(genomes(), Arrays.copyOf(snapshot.genomes(), SIZE * WORDS));
+
+		// the restored random continues the saved one.
+		FastRandom random = new FastRandom(7);
+		FastRandom restored = snapshot.getRandom();
+		for (int i = 0; i < 100; ++i) {
+			assertEquals(random.nextLong(), restored.nextLong());
+		}
+	}
+
+	@Test
+	public void missingFileIsNull() throws IOException {
+		assertNull(Checkpointer.read(new File(mFolder.getRoot(), "missing").getPath()));
+	}
+
+	// every prefix of the file is rejected, so a partly written file is never restored.
+	@Test
+	public void truncatedFileIsRejected() throws IOException {
+		File file = new File(write(new FastRandom(7)));
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		for (int length = 0; length < bytes.length; ++length) {
+			assertRejected("length " + length, Arrays.copyOf(bytes, length));
+		}
+	}
+
+	// the files are sparse, so they take no space. the size of the second one wraps to 64 bytes as an int.
+	@Test
+	public void fileLargerThanBufferIsRejected() throws IOException {
+		for (long length : new long[] { 3L << 30, (4L << 30) + 64 }) {
+			File file = mFolder.newFile();
+			try (RandomAccessFile sparse = new RandomAccessFile(file, "rw")) {
+				sparse.setLength(length);
+			}
+
+			try {
+				Checkpointer.read(file.getPath());
+				fail("length " + length);
+			} catch (IOException e) {
+				// expected.
+			} finally {
+				file.delete();
+			}
+		}
+	}
+
+	@Test
+	public void corruptHeaderIsRejected() throws IOException {
+		byte[] bytes = Files.readAllBytes(new File(write(new FastRandom(7))).toPath());
+		ByteBuffer header = ByteBuffer.wrap(bytes);
+		int randomAt = 4 * 3 + 8 * 2;
+		int sizeAt = randomAt + 8 * FastRandom.STATE_WORDS;
+
+		// the magic, the version, the evaluations, the size, the words and a size whose product with the words
+		// overflows an int.
+		assertRejected("magic", with(bytes, 0, header.getInt(0) ^ 1));
+		assertRejected("version", with(bytes, 4, header.getInt(4) + 1));
+		assertRejected("evaluations", with(bytes, 4 * 3 + 8, -1));
+		assertRejected("size", with(bytes, sizeAt, -1));
+		assertRejected("words", with(bytes, sizeAt + 4, -1));
+		assertRejected("overflow", with(with(bytes, sizeAt, 1 << 16), sizeAt + 4, 1 << 16));
+
+		// the state of the random is all zero, which would make a random of zeros.
+		byte[] zero = bytes.clone();
+		Arrays.fill(zero, randomAt, sizeAt, (byte) 0);
+		assertRejected("random", zero);
+	}
+
+	private String write(FastRandom random) throws IOException {
+		String fileName = new File(mFolder.getRoot(), "run.checkpoint").getPath();
+		Checkpointer checkpointer = new Checkpointer(fileName);
+		Snapshot snapshot = checkpointer.acquire();
+		snapshot.set(12, -34, 5L << 33, random, SIZE, WORDS);
+		System.arraycopy(fitness(), 0, snapshot.fitness(), 0, SIZE);
+		System.arraycopy(genomes(), 0, snapshot.genomes(), 0, SIZE * WORDS);
+		checkpointer.submit(snapshot);
+		checkpointer.close();
+
+		return fileName;
+	}
+
+	private void assertRejected(String message, byte[] bytes) throws IOException {
+		File file = mFolder.newFile();
+		Files.write(file.toPath(), bytes);
+		try {
+			Checkpointer.read(file.getPath());
+			fail(message);
+		} catch (IOException e) {
+			// expected.
+		}
+	}
+
+	private static byte[] with(byte[] bytes, int index, int value) {
+		byte[] result = bytes.clone();
+		ByteBuffer.wrap(result).putInt(index, value);
+		return result;
+	}
+
+	private static long[] fitness() {
+		long[] fitness = new long[SIZE];
+		for (int i = 0; i < SIZE; ++i) {
+			fitness[i] = Double.doubleToLongBits(i - 2.5);
+		}
+
+		return fitness;
+	}
+
+	private static long[] genomes() {
+		long[] genomes = new long[SIZE * WORDS];
+		for (int i = 0; i < genomes.length; ++i) {
+			genomes[i] = i * 0x9E3779B97F4A7C15L;
+		}
+
+		return genomes;
+	}
+}
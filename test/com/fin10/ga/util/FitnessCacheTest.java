@@ -0,0 +1,200 @@
+package com.fin10.ga.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+public class FitnessCacheTest {
+
+	private static final int CAPACITY = 16 * 4;
+	private static final int WORDS = 3;
+
+	private final long[] mFitness = new long[1];
+
+	@Test
+	public void sizeIsBoundedByCapacity() {
+		// the capacity is not a multiple of the segments, so some segments hold one more genome.
+		for (int capacity : new int[] { CAPACITY, 16, 100, 1001 }) {
+			FitnessCache cache = new FitnessCache(capacity);
+			for (int i = 0; i < 100 * capacity; ++i) {
+				cache.put(genome(i), 0, WORDS, i);
+			}
+
+			// every segment is full after so many genomes.
+			assertEquals(capacity, cache.size());
+		}
+	}
+
+	@Test
+	public void leastRecentlyUsedIsEvicted() {
+		FitnessCache cache = new FitnessCache(CAPACITY);
+		cache.put(genome(0), 0, WORDS, 0);
+		cache.put(genome(1), 0, WORDS, 1);
+		for (int i = 2; i < 100 * CAPACITY; ++i) {
+			cache.put(genome(i), 0, WORDS, i);
+			// the genome 0 is always the most recently used one of its segment.
+			assertEquals(0, get(cache, genome(0), 0, WORDS));
+		}
+
+		assertFalse(cache.get(genome(1), 0, WORDS, mFitness));
+		assertEquals(100 * CAPACITY - 1, get(cache, genome(100 * CAPACITY - 1), 0, WORDS));
+	}
+
+	// the cache is compared with a LinkedHashMap in the access order for each segment.
+	@Test
+	public void evictionMatchesSegmentOrder() {
+		Random random = new Random(1);
+		FitnessCache cache = new FitnessCache(CAPACITY);
+		List<LinkedHashMap<Long, Long>> segments = new ArrayList<>();
+		for (int i = 0; i < 16; ++i) {
+			segments.add(new LinkedHashMap<Long, Long>(16, 0.75f, true));
+		}
+
+		for (int step = 0; step < 20000; ++step) {
+			int index = random.nextInt(3 * CAPACITY);
+			long[] words = genome(index);
+			LinkedHashMap<Long, Long> segment = segments.get((int) (FitnessCache.hash(words, 0, WORDS) >>> 60));
+			if (random.nextBoolean()) {
+				cache.put(words, 0, WORDS, step);
+				segment.put((long) index, (long) step);
+				if (segment.size() > CAPACITY / 16) segment.remove(segment.keySet().iterator().next());
+			} else {
+				Long expected = segment.get((long) index);
+				assertEquals("step " + step, expected != null, cache.get(words, 0, WORDS, mFitness));
+				if (expected != null) assertEquals("step " + step, (long) expected, mFitness[0]);
+			}
+		}
+	}
+
+	@Test
+	public void wordsAreCopied() {
+		FitnessCache cache = new FitnessCache(CAPACITY);
+		long[] words = genome(7);
+		cache.put(words, 0, WORDS, 42);
+		words[0] = ~words[0];
+
+		assertFalse(cache.get(words, 0, WORDS, mFitness));
+		assertEquals(42, get(cache, genome(7), 0, WORDS));
+	}
+
+	@Test
+	public void genomeIsFoundAtOffset() {
+		FitnessCache cache = new FitnessCache(CAPACITY);
+		cache.put(genome(5), 0, WORDS, 5);
+
+		long[] population = new long[3 * WORDS];
+		System.arraycopy(genome(4), 0, population, 0, WORDS);
+		System.arraycopy(genome(5), 0, population, WORDS, WORDS);
+		System.arraycopy(genome(6), 0, population, 2 * WORDS, WORDS);
+
+		assertFalse(cache.get(population, 0, WORDS, mFitness));
+		assertEquals(5, get(cache, population, WORDS, WORDS));
+		// a prefix of the genome is a different genome.
+		assertFalse(cache.get(population, WORDS, WORDS - 1, mFitness));
+	}
+
+	// every long is a fitness, e.g. the bits of -0.0 are Long.MIN_VALUE, so none of them reads as a miss.
+	@Test
+	public void everyValueIsFound() {
+		FitnessCache cache = new FitnessCache(CAPACITY);
+		long[] values = { Double.doubleToLongBits(-0.0), Double.doubleToLongBits(0.0), Long.MIN_VALUE, Long.MAX_VALUE, -1,
+				Double.doubleToLongBits(Double.NaN) };
+		for (int i = 0; i < values.length; ++i) {
+			cache.put(genome(i), 0, WORDS, values[i]);
+		}
+
+		for (int i = 0; i < values.length; ++i) {
+			assertEquals(values[i], get(cache, genome(i), 0, WORDS));
+		}
+		assertEquals(0, cache.getMisses());
+	}
+
+	@Test
+	public void putReplacesFitness() {
+		FitnessCache cache = new FitnessCache(CAPACITY);
+		cache.put(genome(3), 0, WORDS, 1);
+		cache.put(genome(3), 0, WORDS, 2);
+
+		assertEquals(1, cache.size());
+		assertEquals(2, get(cache, genome(3), 0, WORDS));
+	}
+
+	@Test
+	public void hitsAndMissesAreCounted() {
+		FitnessCache cache = new FitnessCache(CAPACITY);
+		cache.put(genome(1), 0, WORDS, 1);
+		cache.get(genome(1), 0, WORDS, mFitness);
+		cache.get(genome(1), 0, WORDS, mFitness);
+		cache.get(genome(2), 0, WORDS, mFitness);
+
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(2. / 3, cache.getHitRate(), 1e-9);
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getHits());
+		assertEquals(0, cache.getMisses());
+		assertFalse(cache.get(genome(1), 0, WORDS, mFitness));
+
+		// the cleared cache is filled again.
+		for (int i = 0; i < 100 * CAPACITY; ++i) {
+			cache.put(genome(i), 0, WORDS, i);
+		}
+		assertEquals(CAPACITY, cache.size());
+	}
+
+	// the lookups of a full cache, whether they hit or miss, and the puts which evict allocate nothing.
+	@Test
+	public void lookupsDoNotAllocate() {
+		Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+
+		FitnessCache cache = new FitnessCache(CAPACITY);
+		long[][] genomes = new long[4 * CAPACITY][];
+		for (int i = 0; i < genomes.length; ++i) {
+			genomes[i] = genome(i);
+			cache.put(genomes[i], 0, WORDS, i);
+		}
+
+		long thread = Thread.currentThread().getId();
+		long before = bean.getThreadAllocatedBytes(thread);
+		for (int round = 0; round < 100; ++round) {
+			for (int i = 0; i < genomes.length; ++i) {
+				if (!cache.get(genomes[i], 0, WORDS, mFitness)) cache.put(genomes[i], 0, WORDS, i);
+			}
+		}
+		long allocated = bean.getThreadAllocatedBytes(thread) - before;
+
+		// 25600 lookups would allocate about 1 MB with a key object for each of them.
+		assertTrue(allocated + " bytes", allocated < 64 * 1024);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void capacityLessThanSegmentsIsRejected() {
+		new FitnessCache(15);
+	}
+
+	private long get(FitnessCache cache, long[] words, int offset, int length) {
+		assertTrue(cache.get(words, offset, length, mFitness));
+		return mFitness[0];
+	}
+
+	// the genomes of the neighboring indices differ in a few bits of one word.
+	private static long[] genome(int index) {
+		long[] words = new long[WORDS];
+		words[index % WORDS] = index;
+		words[WORDS - 1] |= 1L << 63;
+		return words;
+	}
+}
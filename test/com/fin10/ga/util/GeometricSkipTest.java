@@ -0,0 +1,144 @@
+package com.fin10.ga.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+// the skips must mutate each gene independently in the probability p, like a Bernoulli(p) draw for each gene.
+// the statistics are compared with their expectations within 5 standard deviations.
+public class GeometricSkipTest {
+
+	private static final double SIGMAS = 5;
+
+	@Test
+	public void rateIsProb() {
+		Random random = new FastRandom(1);
+		for (float prob : new float[] { 1e-6f, 1e-4f, 0.01f, 0.1f, 0.5f, 0.9f, 0.999f }) {
+			GeometricSkip skip = new GeometricSkip(prob);
+			int length = 1000;
+			long genes = prob < 1e-3f ? 100000000L : 2000000L;
+			long mutated = 0;
+			for (long genome = 0; genome < genes / length; ++genome) {
+				for (int i = skip.first(random); i < length; i = skip.next(i, random)) {
+					++mutated;
+				}
+			}
+
+			assertWithin("p " + prob, genes * (double) prob, genes * (double) prob * (1 - prob), mutated);
+		}
+	}
+
+	// each gene has the same rate, so the first genes after the start are not more likely than the others.
+	@Test
+	public void rateIsSameForEachGene() {
+		Random random = new FastRandom(2);
+		float prob = 0.05f;
+		int length = 200;
+		int genomes = 200000;
+		GeometricSkip skip = new GeometricSkip(prob);
+		int[] counts = new int[length];
+		for (int genome = 0; genome < genomes; ++genome) {
+			for (int i = skip.first(random); i < length; i = skip.next(i, random)) {
+				++counts[i];
+			}
+		}
+
+		for (int i = 0; i < length; ++i) {
+			assertWithin("gene " + i, genomes * prob, genomes * prob * (1 - prob), counts[i]);
+		}
+	}
+
+	// the number of the mutated genes of a genome is Binomial(length, p), and the neighboring genes are independent.
+	@Test
+	public void genesAreIndependent() {
+		Random random = new FastRandom(3);
+		for (float prob : new float[] { 0.01f, 0.3f, 0.8f }) {
+			GeometricSkip skip = new GeometricSkip(prob);
+			int length = 100;
+			int genomes = 200000;
+			double sum = 0;
+			double squares = 0;
+			long pairs = 0;
+			for (int genome = 0; genome < genomes; ++genome) {
+				int count = 0;
+				int previous = -2;
+				for (int i = skip.first(random); i < length; i = skip.next(i, random)) {
+					if (i == previous + 1) ++pairs;
+					previous = i;
+					++count;
+				}
+				sum += count;
+				squares += (double) count * count;
+			}
+
+			String message = "p " + prob;
+			double mean = sum / genomes;
+			double variance = squares / genomes - mean * mean;
+			double expectedVariance = length * prob * (1 - prob);
+			assertWithin(message, length * prob, expectedVariance / genomes, mean);
+			// the variance of the sample variance is about 2 * variance^2 / n for the near normal counts.
+			assertEquals(message, expectedVariance, variance, SIGMAS * expectedVariance * Math.sqrt(2. / genomes) + 0.05);
+
+			double p2 = (double) prob * prob;
+			long trials = (long) genomes * (length - 1);
+			assertWithin(message + " pairs", trials * p2, trials * p2 * (1 + 2 * prob - 3 * p2), pairs);
+		}
+	}
+
+	@Test
+	public void oneMutatesEveryGene() {
+		Random random = new FastRandom(4);
+		GeometricSkip skip = new GeometricSkip(1);
+		int count = 0;
+		for (int i = skip.first(random); i < 1000; i = skip.next(i, random)) {
+			assertEquals(count, i);
+			++count;
+		}
+		assertEquals(1000, count);
+		assertEquals(Integer.MAX_VALUE, skip.next(Integer.MAX_VALUE - 1, random));
+	}
+
+	// the skip of a tiny p is larger than a long, so it must saturate instead of overflowing into a negative gene.
+	@Test
+	public void tinyProbMutatesNoGene() {
+		Random random = new FastRandom(7);
+		for (float prob : new float[] { Float.MIN_VALUE, 1e-30f }) {
+			GeometricSkip skip = new GeometricSkip(prob);
+			for (int trial = 0; trial < 10000; ++trial) {
+				assertEquals("p " + prob, Integer.MAX_VALUE, skip.first(random));
+			}
+		}
+	}
+
+	@Test
+	public void zeroMutatesNoGene() {
+		Random random = new FastRandom(5);
+		GeometricSkip skip = new GeometricSkip(0);
+		assertEquals(Integer.MAX_VALUE, skip.first(random));
+		assertEquals(Integer.MAX_VALUE, skip.next(10, random));
+	}
+
+	// the skip is always after the index, and it saturates at Integer.MAX_VALUE instead of overflowing.
+	@Test
+	public void nextIsAfterIndex() {
+		Random random = new FastRandom(6);
+		for (float prob : new float[] { Float.MIN_VALUE, 1e-30f, 1e-9f, 1e-6f, 0.5f }) {
+			GeometricSkip skip = new GeometricSkip(prob);
+			for (int index : new int[] { -1, 0, 1 << 20, Integer.MAX_VALUE - 100, Integer.MAX_VALUE - 1 }) {
+				for (int trial = 0; trial < 1000; ++trial) {
+					int next = skip.next(index, random);
+					assertTrue("p " + prob + ", " + index + " -> " + next, next > index);
+				}
+			}
+		}
+	}
+
+	private static void assertWithin(String message, double expected, double variance, double actual) {
+		double deviation = Math.sqrt(variance);
+		assertTrue(message + ": " + actual + " of " + expected + " +- " + deviation,
+				Math.abs(actual - expected) <= SIGMAS * deviation);
+	}
+}
@@ -0,0 +1,161 @@
+package com.fin10.ga.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+// the kernels are compared with the plain loops over the genes.
+// the vector kernels are loaded by the name, so the test is skipped when they are not compiled or the module is not added.
+public class KernelsTest {
+
+	private static final String VECTOR_KERNELS = "com.fin10.ga.util.VectorKernels";
+	private static final int TRIALS = 3000;
+	private static final int MAX_LENGTH = 600;
+
+	@Test
+	public void scalarMatchesReference() {
+		assertMatchesReference(new ScalarKernels());
+	}
+
+	@Test
+	public void vectorMatchesReference() {
+		assertMatchesReference(createVectorKernels());
+	}
+
+	@Test
+	public void selectedMatchesReference() {
+		assertMatchesReference(Kernels.get());
+	}
+
+	// the same genes give the same results on both kernels.
+	@Test
+	public void vectorMatchesScalar() {
+		Kernels vector = createVectorKernels();
+		Kernels scalar = new ScalarKernels();
+		Random random = new Random(2);
+		for (int trial = 0; trial < TRIALS; ++trial) {
+			int length = createLength(random);
+			int words = (length + 63) >>> 6;
+			int offset = random.nextInt(3);
+			long[] genome = createWords(offset, length, random);
+			long[] other = createWords(offset, length, random);
+			int[] values = createValues(length, random);
+			boolean[] genes = createGenes(length, random);
+			String message = "trial " + trial + ", length " + length;
+
+			assertEquals(message, scalar.maskedSum(genome, offset, values, length),
+					vector.maskedSum(genome, offset, values, length));
+			assertEquals(message, scalar.hammingDistance(genome, offset, other, offset, words),
+					vector.hammingDistance(genome, offset, other, offset, words));
+
+			int[] expected = createValues(length, random);
+			int[] actual = expected.clone();
+			scalar.addBitCounts(genome, offset, expected, length);
+			vector.addBitCounts(genome, offset, actual, length);
+			assertArrayEquals(message, expected, actual);
+
+			scalar.addCounts(genes, expected, length);
+			vector.addCounts(genes, actual, length);
+			assertArrayEquals(message, expected, actual);
+		}
+	}
+
+	private static void assertMatchesReference(Kernels kernels) {
+		Random random = new Random(1);
+		for (int trial = 0; trial < TRIALS; ++trial) {
+			int length = createLength(random);
+			int words = (length + 63) >>> 6;
+			int offset = random.nextInt(3);
+			int otherOffset = random.nextInt(3);
+			long[] genome = createWords(offset, length, random);
+			long[] other = createWords(otherOffset, length, random);
+			int[] values = createValues(length, random);
+			String message = kernels.getName() + ", trial " + trial + ", length " + length;
+
+			int sum = 0;
+			int distance = 0;
+			int[] counts = createValues(length, random);
+			int[] expected = counts.clone();
+			for (int i = 0; i < length; ++i) {
+				if (get(genome, offset, i)) {
+					sum += values[i];
+					++expected[i];
+				}
+				if (get(genome, offset, i) != get(other, otherOffset, i)) ++distance;
+			}
+
+			assertEquals(message, sum, kernels.maskedSum(genome, offset, values, length));
+			assertEquals(message, distance, kernels.hammingDistance(genome, offset, other, otherOffset, words));
+			kernels.addBitCounts(genome, offset, counts, length);
+			assertArrayEquals(message, expected, counts);
+
+			// only the first 'length' values are counted.
+			boolean[] genes = createGenes(length + random.nextInt(3), random);
+			for (int i = 0; i < length; ++i) {
+				if (genes[i]) ++expected[i];
+			}
+			kernels.addCounts(genes, counts, length);
+			assertArrayEquals(message, expected, counts);
+		}
+	}
+
+	private static Kernels createVectorKernels() {
+		try {
+			return (Kernels) Class.forName(VECTOR_KERNELS).getConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			Assume.assumeNoException(e);
+			return null;
+		}
+	}
+
+	// the multiples of 64 and of the vector lanes are more likely, and so are the lengths just around them.
+	private static int createLength(Random random) {
+		switch (random.nextInt(4)) {
+		case 0:
+			return 64 * random.nextInt(MAX_LENGTH / 64 + 1);
+		case 1:
+			return Math.max(0, 64 * random.nextInt(MAX_LENGTH / 64 + 1) + random.nextInt(3) - 1);
+		default:
+			return random.nextInt(MAX_LENGTH + 1);
+		}
+	}
+
+	// the genome is at the offset of the words, the bits after length are 0, and the words around it are random.
+	private static long[] createWords(int offset, int length, Random random) {
+		int count = (length + 63) >>> 6;
+		long[] words = new long[offset + count + 2];
+		for (int i = 0; i < words.length; ++i) {
+			words[i] = random.nextInt(4) == 0 ? -1L : random.nextLong();
+		}
+		if ((length & 63) != 0) words[offset + count - 1] &= -1L >>> (64 - (length & 63));
+
+		return words;
+	}
+
+	// the values are large enough to make the sums overflow the lanes of a narrower type.
+	private static int[] createValues(int length, Random random) {
+		int[] values = new int[length];
+		for (int i = 0; i < length; ++i) {
+			values[i] = random.nextInt(1 << 20) - (1 << 19);
+		}
+
+		return values;
+	}
+
+	private static boolean[] createGenes(int length, Random random) {
+		boolean[] genes = new boolean[length];
+		for (int i = 0; i < length; ++i) {
+			genes[i] = random.nextBoolean();
+		}
+
+		return genes;
+	}
+
+	private static boolean get(long[] words, int offset, int index) {
+		return (words[offset + (index >>> 6)] & (1L << index)) != 0;
+	}
+}
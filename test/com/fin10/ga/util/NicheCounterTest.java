@@ -0,0 +1,160 @@
+package com.fin10.ga.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+// the niche counts after random changes are compared with the counts of all pairs from scratch.
+// the counter without the matrix is made by a maxDistances of 0, so both paths are checked on small populations.
+public class NicheCounterTest {
+
+	private static final int TRIALS = 150;
+	private static final int STEPS = 40;
+	private static final float[] RADII = { 0.5f, 1, 2.5f, 7, 16, 64.3f, 300 };
+
+	private final ParallelEvaluator mEvaluator = new ParallelEvaluator(3);
+
+	@After
+	public void tearDown() {
+		mEvaluator.shutdown();
+	}
+
+	@Test
+	public void matrixMatchesRecount() {
+		assertMatchesRecount(1L << 26, new Random(1));
+	}
+
+	@Test
+	public void onTheFlyMatchesRecount() {
+		assertMatchesRecount(0, new Random(2));
+	}
+
+	// the distances of the long genomes don't fit in a short, so they are not clamped by the matrix.
+	@Test
+	public void radiusLargerThanShortMatchesRecount() {
+		Random random = new Random(3);
+		int words = 600;
+		for (float radius : new float[] { 20000, 35000.5f, 40000 }) {
+			NicheCounter counter = new NicheCounter(radius, mEvaluator);
+			long[] population = new long[8 * words];
+			for (int i = 0; i < population.length; ++i) {
+				population[i] = random.nextLong();
+			}
+			// the two genomes at the distance 38400 are within the radius 40000.
+			for (int i = 0; i < words; ++i) {
+				population[words + i] = ~population[i];
+			}
+
+			System.arraycopy(population, 0, counter.prepare(8, words), 0, population.length);
+			counter.rebuild();
+			assertCounts("radius " + radius, counter, population, 8, words, radius);
+
+			for (int step = 0; step < 5; ++step) {
+				int i = random.nextInt(8);
+				mutate(population, i * words, words, random.nextInt(20000), random);
+				counter.replace(i, population, i * words);
+				assertCounts("radius " + radius + ", step " + step, counter, population, 8, words, radius);
+			}
+		}
+	}
+
+	// the counter is prepared again for a smaller and then a larger population.
+	@Test
+	public void preparedAgainMatchesRecount() {
+		Random random = new Random(4);
+		for (long maxDistances : new long[] { 1L << 26, 0 }) {
+			NicheCounter counter = new NicheCounter(10, mEvaluator, maxDistances);
+			for (int size : new int[] { 30, 5, 1, 60 }) {
+				long[] population = createPopulation(size, 2, random);
+				System.arraycopy(population, 0, counter.prepare(size, 2), 0, population.length);
+				counter.rebuild();
+				assertEquals(size, counter.size());
+				assertCounts("size " + size, counter, population, size, 2, 10);
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void slotOutOfPopulationIsRejected() {
+		NicheCounter counter = new NicheCounter(3, mEvaluator);
+		counter.prepare(4, 1);
+		counter.rebuild();
+		counter.change(4, new long[1], 0);
+	}
+
+	// each step changes a few genomes, sometimes the same one twice, and counts them by update(), or replaces one.
+	private void assertMatchesRecount(long maxDistances, Random random) {
+		for (int trial = 0; trial < TRIALS; ++trial) {
+			int size = 1 + random.nextInt(40);
+			int words = 1 + random.nextInt(3);
+			float radius = RADII[random.nextInt(RADII.length)];
+			NicheCounter counter = new NicheCounter(radius, mEvaluator, maxDistances);
+			long[] population = createPopulation(size, words, random);
+			System.arraycopy(population, 0, counter.prepare(size, words), 0, population.length);
+			counter.rebuild();
+			String message = "trial " + trial + ", size " + size + ", radius " + radius;
+			assertCounts(message, counter, population, size, words, radius);
+
+			for (int step = 0; step < STEPS; ++step) {
+				if (random.nextInt(3) == 0) {
+					int i = random.nextInt(size);
+					mutate(population, i * words, words, random.nextInt(8), random);
+					counter.replace(i, population, i * words);
+				} else {
+					int changes = 1 + random.nextInt(Math.min(size, 6));
+					for (int k = 0; k < changes; ++k) {
+						int i = random.nextInt(size);
+						mutate(population, i * words, words, random.nextInt(8), random);
+						counter.change(i, population, i * words);
+					}
+					counter.update();
+				}
+				assertCounts(message + ", step " + step, counter, population, size, words, radius);
+			}
+		}
+	}
+
+	private static void assertCounts(String message, NicheCounter counter, long[] population, int size, int words,
+			float radius) {
+		for (int i = 0; i < size; ++i) {
+			double sum = 0;
+			for (int j = 0; j < size; ++j) {
+				if (i == j) continue;
+
+				int distance = 0;
+				for (int k = 0; k < words; ++k) {
+					distance += Long.bitCount(population[i * words + k] ^ population[j * words + k]);
+				}
+				if (distance < radius) sum += 1.f - distance / radius;
+			}
+
+			assertEquals(message + ", genome " + i, sum, counter.getNicheCount(i), 1e-3);
+		}
+	}
+
+	// the genomes are a few flips away from a common genome, so many pairs are within the radius.
+	private static long[] createPopulation(int size, int words, Random random) {
+		long[] base = new long[words];
+		for (int k = 0; k < words; ++k) {
+			base[k] = random.nextLong();
+		}
+
+		long[] population = new long[size * words];
+		for (int i = 0; i < size; ++i) {
+			System.arraycopy(base, 0, population, i * words, words);
+			mutate(population, i * words, words, random.nextInt(12), random);
+		}
+
+		return population;
+	}
+
+	private static void mutate(long[] population, int offset, int words, int flips, Random random) {
+		for (int f = 0; f < flips; ++f) {
+			int bit = random.nextInt(words * 64);
+			population[offset + (bit >>> 6)] ^= 1L << bit;
+		}
+	}
+}
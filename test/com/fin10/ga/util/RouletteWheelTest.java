@@ -0,0 +1,135 @@
+package com.fin10.ga.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RouletteWheelTest {
+
+	private static final int SELECTIONS = 200000;
+
+	// the chi-square statistic of 49 degrees of freedom is less than it with the probability 1 - 1e-6.
+	private static final double CHI_SQUARE_LIMIT = 110;
+
+	@Test
+	public void aliasFollowsScores() {
+		assertFollowsScores(RouletteWheel.Method.ALIAS);
+	}
+
+	@Test
+	public void binarySearchFollowsScores() {
+		assertFollowsScores(RouletteWheel.Method.BINARY_SEARCH);
+	}
+
+	// the alias table is built again for the new scores.
+	@Test
+	public void aliasIsRebuilt() {
+		RouletteWheel wheel = new RouletteWheel();
+		wheel.build(new long[] { 1, 0, 0 }, 3);
+		wheel.prepare(RouletteWheel.Method.ALIAS);
+		wheel.build(new long[] { 0, 0, 1 }, 3);
+
+		int[] counts = select(wheel, RouletteWheel.Method.ALIAS, 1000, 3);
+		assertEquals(1000, counts[2]);
+	}
+
+	// the stochastic universal sampling selects each index floor(e) or ceil(e) times, where e is its expectation.
+	@Test
+	public void stochasticUniversalIsWithinOneOfExpectation() {
+		long[] scores = createScores(50, new Random(1));
+		long total = 0;
+		for (long score : scores) {
+			total += score;
+		}
+
+		RouletteWheel wheel = new RouletteWheel();
+		wheel.build(scores, scores.length);
+		Random random = new Random(2);
+		for (int trial = 0; trial < 100; ++trial) {
+			int count = 1 + random.nextInt(1000);
+			int[] counts = select(wheel, RouletteWheel.Method.STOCHASTIC_UNIVERSAL, count, scores.length, random);
+			for (int i = 0; i < scores.length; ++i) {
+				double expected = (double) scores[i] * count / total;
+				assertTrue(i + ": " + counts[i] + " of " + expected, Math.abs(counts[i] - expected) < 1 + 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void zeroScoreIsNeverSelected() {
+		long[] scores = { 0, 10, 30, 0, 60 };
+		RouletteWheel wheel = new RouletteWheel();
+		wheel.build(scores, scores.length);
+		for (RouletteWheel.Method method : RouletteWheel.Method.values()) {
+			int[] counts = select(wheel, method, SELECTIONS, scores.length);
+			assertEquals(method.name(), 0, counts[0]);
+			assertEquals(method.name(), 0, counts[3]);
+		}
+	}
+
+	@Test
+	public void zeroScoresAreUniform() {
+		RouletteWheel wheel = new RouletteWheel();
+		wheel.build(new long[4], 4);
+		for (RouletteWheel.Method method : RouletteWheel.Method.values()) {
+			int[] counts = select(wheel, method, SELECTIONS, 4);
+			for (int count : counts) {
+				assertEquals(method.name(), SELECTIONS / 4, count, SELECTIONS / 100);
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeScoreIsRejected() {
+		new RouletteWheel().build(new long[] { 1, -1 }, 2);
+	}
+
+	private static void assertFollowsScores(RouletteWheel.Method method) {
+		long[] scores = createScores(50, new Random(1));
+		long total = 0;
+		for (long score : scores) {
+			total += score;
+		}
+
+		RouletteWheel wheel = new RouletteWheel();
+		wheel.build(scores, scores.length);
+		wheel.prepare(method);
+		int[] counts = select(wheel, method, SELECTIONS, scores.length);
+
+		double chiSquare = 0;
+		for (int i = 0; i < scores.length; ++i) {
+			double expected = (double) scores[i] * SELECTIONS / total;
+			chiSquare += (counts[i] - expected) * (counts[i] - expected) / expected;
+		}
+		assertTrue(method + ": " + chiSquare, chiSquare < CHI_SQUARE_LIMIT);
+	}
+
+	// the scores are skewed, so the alias table has both small and large columns.
+	private static long[] createScores(int size, Random random) {
+		long[] scores = new long[size];
+		for (int i = 0; i < size; ++i) {
+			scores[i] = 1 + random.nextInt(10) * (i % 5 == 0 ? 100 : 1);
+		}
+
+		return scores;
+	}
+
+	private static int[] select(RouletteWheel wheel, RouletteWheel.Method method, int count, int size) {
+		return select(wheel, method, count, size, new Random(3));
+	}
+
+	private static int[] select(RouletteWheel wheel, RouletteWheel.Method method, int count, int size, Random random) {
+		int[] result = new int[count];
+		wheel.select(method, random, result, count);
+
+		int[] counts = new int[size];
+		for (int index : result) {
+			++counts[index];
+		}
+
+		return counts;
+	}
+}
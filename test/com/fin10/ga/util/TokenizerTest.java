@@ -0,0 +1,197 @@
+package com.fin10.ga.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TokenizerTest {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	// the channel returns at most 'chunk' bytes per read, so the tokens are split where the test wants.
+	private static final class ChunkedChannel implements ReadableByteChannel {
+
+		private final byte[] mBytes;
+		private final int mChunk;
+		private int mPosition = 0;
+		private boolean mOpen = true;
+
+		private ChunkedChannel(String input, int chunk) {
+			mBytes = input.getBytes(StandardCharsets.UTF_8);
+			mChunk = chunk;
+		}
+
+		@Override
+		public int read(ByteBuffer buffer) {
+			if (mPosition == mBytes.length) return -1;
+
+			int length = Math.min(mChunk, Math.min(buffer.remaining(), mBytes.length - mPosition));
+			buffer.put(mBytes, mPosition, length);
+			mPosition += length;
+			return length;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return mOpen;
+		}
+
+		@Override
+		public void close() {
+			mOpen = false;
+		}
+	}
+
+	@Test
+	public void negativeNumbersAreRead() throws IOException {
+		Tokenizer tokenizer = tokenizer("-1 -42\n0 -0\t7 -2147483647");
+		assertEquals(-1, tokenizer.nextInt());
+		assertEquals(-42, tokenizer.nextInt());
+		assertEquals(0, tokenizer.nextInt());
+		assertEquals(0, tokenizer.nextInt());
+		assertEquals(7, tokenizer.nextInt());
+		assertEquals(-Integer.MAX_VALUE, tokenizer.nextInt());
+		assertFalse(tokenizer.hasNext());
+	}
+
+	@Test
+	public void limitsAreRead() throws IOException {
+		Tokenizer tokenizer = tokenizer("-2147483648 2147483647 -000000000002147483648");
+		assertEquals(Integer.MIN_VALUE, tokenizer.nextInt());
+		assertEquals(Integer.MAX_VALUE, tokenizer.nextInt());
+		assertEquals(Integer.MIN_VALUE, tokenizer.nextInt());
+	}
+
+	@Test
+	public void outOfRangeIsRejected() throws IOException {
+		for (String input : new String[] { "2147483648", "-2147483649", "99999999999999999999999", "-99999999999999999999" }) {
+			try {
+				tokenizer(input).nextInt();
+				fail(input);
+			} catch (InputMismatchException e) {
+				// expected.
+			}
+		}
+	}
+
+	@Test
+	public void malformedNumberIsRejected() throws IOException {
+		for (String input : new String[] { "-", "- 1", "12a", "a", "--1", "1-" }) {
+			try {
+				tokenizer(input).nextInt();
+				fail(input);
+			} catch (InputMismatchException e) {
+				// expected.
+			}
+		}
+	}
+
+	@Test
+	public void emptyInputHasNoToken() throws IOException {
+		for (String input : new String[] { "", " ", "\n\r\n\t\f  \n" }) {
+			Tokenizer tokenizer = tokenizer(input);
+			assertFalse(tokenizer.hasNext());
+			try {
+				tokenizer.nextInt();
+				fail("nextInt of '" + input + "'");
+			} catch (NoSuchElementException e) {
+				// expected.
+			}
+			try {
+				tokenizer.next();
+				fail("next of '" + input + "'");
+			} catch (NoSuchElementException e) {
+				// expected.
+			}
+		}
+	}
+
+	// the tokens are split by the end of the buffer of the tokenizer, or by every short read of the channel.
+	@Test
+	public void tokensSpanChunks() throws IOException {
+		Random random = new Random(1);
+		List<String> tokens = new ArrayList<>();
+		StringBuilder input = new StringBuilder();
+		while (input.length() < 3 * BUFFER_SIZE) {
+			String token = random.nextBoolean() ? Integer.toString(random.nextInt()) : name(random);
+			tokens.add(token);
+			input.append(token).append(random.nextInt(8) == 0 ? "\r\n" : " ");
+		}
+
+		for (int chunk : new int[] { Integer.MAX_VALUE, BUFFER_SIZE - 1, 4093, 7, 1 }) {
+			assertTokens("chunk " + chunk, tokens, new Tokenizer(new ChunkedChannel(input.toString(), chunk)));
+		}
+	}
+
+	// a token is placed across the end of the buffer at each offset.
+	@Test
+	public void tokenSpansBufferBoundary() throws IOException {
+		String[] tokens = { "-2147483648", "2147483647", "-5", "a-rather-long-name-which-is-longer-than-the-token-buffer-of-64-bytes" };
+		for (String token : tokens) {
+			for (int before = 0; before <= token.length(); ++before) {
+				StringBuilder input = new StringBuilder();
+				while (input.length() < BUFFER_SIZE - before) {
+					input.append(' ');
+				}
+				input.append(token).append(" 1");
+
+				Tokenizer tokenizer = new Tokenizer(new ChunkedChannel(input.toString(), Integer.MAX_VALUE));
+				String message = token + " at " + before;
+				if (token.startsWith("a")) {
+					assertEquals(message, token, tokenizer.next());
+				} else {
+					assertEquals(message, Integer.parseInt(token), tokenizer.nextInt());
+				}
+				assertEquals(message, 1, tokenizer.nextInt());
+				assertFalse(message, tokenizer.hasNext());
+			}
+		}
+	}
+
+	@Test
+	public void closeClosesChannel() throws IOException {
+		ChunkedChannel channel = new ChunkedChannel("1", 1);
+		new Tokenizer(channel).close();
+		assertFalse(channel.isOpen());
+	}
+
+	private static void assertTokens(String message, List<String> tokens, Tokenizer tokenizer) throws IOException {
+		for (String token : tokens) {
+			assertTrue(message, tokenizer.hasNext());
+			if (Character.isLetter(token.charAt(0))) {
+				assertEquals(message, token, tokenizer.next());
+			} else {
+				assertEquals(message, Integer.parseInt(token), tokenizer.nextInt());
+			}
+		}
+		assertFalse(message, tokenizer.hasNext());
+	}
+
+	// the names are sometimes longer than the initial token bytes.
+	private static String name(Random random) {
+		int length = 1 + random.nextInt(random.nextInt(10) == 0 ? 200 : 10);
+		StringBuilder name = new StringBuilder(length);
+		for (int i = 0; i < length; ++i) {
+			name.append((char) ('a' + random.nextInt(26)));
+		}
+
+		return name.toString();
+	}
+
+	private static Tokenizer tokenizer(String input) {
+		return new Tokenizer(new ChunkedChannel(input, Integer.MAX_VALUE));
+	}
+}
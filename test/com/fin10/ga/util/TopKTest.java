@@ -0,0 +1,145 @@
+package com.fin10.ga.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TopKTest {
+
+	private static final int TRIALS = 2000;
+
+	@Test
+	public void floatSelectMatchesSort() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < TRIALS; ++trial) {
+			int size = 1 + random.nextInt(300);
+			int k = random.nextInt(size + 1);
+			float[] keys = createKeys(size, trial, random);
+
+			int[] indices = new int[size];
+			TopK.fill(indices, size);
+			TopK.select(keys, indices, size, k);
+			assertPermutation(indices);
+
+			float[] selected = new float[k];
+			for (int i = 0; i < k; ++i) {
+				selected[i] = keys[indices[i]];
+			}
+			Arrays.sort(selected);
+
+			float[] sorted = keys.clone();
+			Arrays.sort(sorted);
+			assertArrayEquals("trial " + trial, Arrays.copyOfRange(sorted, size - k, size), selected, 0.f);
+			for (int i = k; i < size && k > 0; ++i) {
+				assertTrue("trial " + trial, keys[indices[i]] <= selected[0]);
+			}
+		}
+	}
+
+	@Test
+	public void intSelectMatchesSort() {
+		Random random = new Random(2);
+		for (int trial = 0; trial < TRIALS; ++trial) {
+			int size = 1 + random.nextInt(300);
+			int k = random.nextInt(size + 1);
+			float[] values = createKeys(size, trial, random);
+			int[] keys = new int[size];
+			for (int i = 0; i < size; ++i) {
+				keys[i] = (int) values[i];
+			}
+
+			int[] indices = new int[size];
+			TopK.fill(indices, size);
+			TopK.select(keys, indices, size, k);
+			assertPermutation(indices);
+
+			int[] selected = new int[k];
+			for (int i = 0; i < k; ++i) {
+				selected[i] = keys[indices[i]];
+			}
+			Arrays.sort(selected);
+
+			int[] sorted = keys.clone();
+			Arrays.sort(sorted);
+			assertArrayEquals("trial " + trial, Arrays.copyOfRange(sorted, size - k, size), selected);
+		}
+	}
+
+	@Test
+	public void sortOrdersSelectedDescending() {
+		Random random = new Random(3);
+		for (int trial = 0; trial < TRIALS; ++trial) {
+			int size = 1 + random.nextInt(300);
+			int k = random.nextInt(Math.min(size, 20) + 1);
+			float[] keys = createKeys(size, trial, random);
+
+			int[] indices = new int[size];
+			TopK.fill(indices, size);
+			TopK.select(keys, indices, size, k);
+			TopK.sort(keys, indices, k);
+
+			float[] sorted = keys.clone();
+			Arrays.sort(sorted);
+			for (int i = 0; i < k; ++i) {
+				assertEquals("trial " + trial, sorted[size - 1 - i], keys[indices[i]], 0.f);
+			}
+		}
+	}
+
+	// the three-way partition keeps it linear, where a two-way partition would be quadratic.
+	@Test(timeout = 5000)
+	public void equalKeysAreLinear() {
+		int size = 1000000;
+		float[] keys = new float[size];
+		int[] indices = new int[size];
+		for (int trial = 0; trial < 10; ++trial) {
+			TopK.fill(indices, size);
+			TopK.select(keys, indices, size, size / 2);
+		}
+	}
+
+	@Test
+	public void onlySizeIndicesAreReordered() {
+		float[] keys = { 1, 5, 3, 9, 7 };
+		int[] indices = { 0, 1, 2, 3, 4 };
+		TopK.select(keys, indices, 3, 1);
+
+		assertEquals(1, indices[0]);
+		assertEquals(3, indices[3]);
+		assertEquals(4, indices[4]);
+	}
+
+	@Test
+	public void trivialKLeavesIndices() {
+		float[] keys = { 1, 5, 3 };
+		int[] indices = { 2, 0, 1 };
+		TopK.select(keys, indices, 3, 0);
+		assertArrayEquals(new int[] { 2, 0, 1 }, indices);
+		TopK.select(keys, indices, 3, 3);
+		assertArrayEquals(new int[] { 2, 0, 1 }, indices);
+	}
+
+	// the even trials have many equal keys, and the odd ones have few.
+	private static float[] createKeys(int size, int trial, Random random) {
+		int range = trial % 2 == 0 ? 1 + random.nextInt(5) : 1 + random.nextInt(1000);
+		float[] keys = new float[size];
+		for (int i = 0; i < size; ++i) {
+			keys[i] = random.nextInt(range) - range / 2;
+		}
+
+		return keys;
+	}
+
+	private static void assertPermutation(int[] indices) {
+		boolean[] seen = new boolean[indices.length];
+		for (int index : indices) {
+			assertTrue("duplicated index " + index, !seen[index]);
+			seen[index] = true;
+		}
+	}
+}